@@ -6,7 +6,7 @@
  */
 
 const { SlashCommandBuilder } = require('discord.js');
-const { resolveLink, getVoteNext } = require('../services/bridge');
+const { getProfile } = require('../services/bridge');
 const { createEmbed, errorEmbed, COLORS, formatDuration } = require('../utils/embeds');
 const { isStaff } = require('../utils/staff');
 const { logAudit } = require('../services/audit');
@@ -45,46 +45,43 @@ module.exports = {
             }).catch(() => {});
         }
 
-        let uuid, playerName;
-
-        if (playerOverride) {
-            // Staff override: use provided UUID directly
-            uuid = playerOverride;
-            playerName = playerOverride; // Will show UUID if no name available
-        } else {
-            // Regular user: resolve from Discord link
-            try {
-                const linkData = await resolveLink(interaction.user.id);
-
-                if (!linkData.linked) {
-                    const embed = createEmbed(
-                        'Account Not Linked',
-                        'Your Discord account is not linked to a Minecraft account.\n\n' +
-                        '**How to link:**\n' +
-                        '1. Join the Minecraft server\n' +
-                        '2. Run `/discordsrv link` in-game\n' +
-                        '3. Follow the instructions to complete linking\n\n' +
-                        'Once linked, you can use this command to check your vote timers.',
-                        COLORS.WARNING
-                    );
-                    await interaction.editReply({ embeds: [embed] });
-                    return;
-                }
+        // Link and vote data come back from the bridge in a single round trip
+        let profile;
+        try {
+            profile = await getProfile(playerOverride
+                ? { uuid: playerOverride }
+                : { discordId: interaction.user.id });
+        } catch (err) {
+            console.error('[votenext] Profile query failed:', err.message, err.status ? `(HTTP ${err.status})` : '', err.data || '');
+            await interaction.editReply({
+                embeds: [errorEmbed('Failed to fetch vote data. The Minecraft server may be offline.')],
+            });
+            return;
+        }
 
-                uuid = linkData.uuid;
-                playerName = linkData.name;
-            } catch (err) {
-                console.error('[votenext] Link resolve failed:', err.message);
-                await interaction.editReply({
-                    embeds: [errorEmbed('Failed to check your account link. The Minecraft server may be offline.')],
-                });
-                return;
-            }
+        if (!playerOverride && !profile.link.linked) {
+            const embed = createEmbed(
+                'Account Not Linked',
+                'Your Discord account is not linked to a Minecraft account.\n\n' +
+                '**How to link:**\n' +
+                '1. Join the Minecraft server\n' +
+                '2. Run `/discordsrv link` in-game\n' +
+                '3. Follow the instructions to complete linking\n\n' +
+                'Once linked, you can use this command to check your vote timers.',
+                COLORS.WARNING
+            );
+            await interaction.editReply({ embeds: [embed] });
+            return;
         }
 
-        // Get vote data
+        // Staff override shows the UUID if no name is available
+        const playerName = profile.link.name || playerOverride;
+
         try {
-            const voteData = await getVoteNext(uuid);
+            const voteData = profile.vote;
+            if (!voteData || voteData.error) {
+                throw new Error(`VotingPlugin lookup ${voteData ? voteData.error : 'skipped'}`);
+            }
 
             if (!voteData.sites || voteData.sites.length === 0) {
                 await interaction.editReply({
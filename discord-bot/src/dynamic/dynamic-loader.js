@@ -10,7 +10,7 @@
 const fs = require('fs');
 const YAML = require('yaml');
 const { SlashCommandBuilder, EmbedBuilder } = require('discord.js');
-const { resolveLink, evalPlaceholders } = require('../services/bridge');
+const { getProfile } = require('../services/bridge');
 const { errorEmbed, COLORS } = require('../utils/embeds');
 const { isStaff } = require('../utils/staff');
 const { logAudit } = require('../services/audit');
@@ -96,38 +96,6 @@ function buildDynamicCommand(cmdConfig) {
                 }).catch(() => {});
             }
 
-            // Resolve player
-            let uuid, playerName;
-
-            if (playerOverride) {
-                uuid = playerOverride;
-                playerName = playerOverride;
-            } else {
-                try {
-                    const linkData = await resolveLink(interaction.user.id);
-                    if (!linkData.linked) {
-                        const embed = new EmbedBuilder()
-                            .setTitle('Account Not Linked')
-                            .setDescription(
-                                'Your Discord account is not linked to a Minecraft account.\n\n' +
-                                'Use `/discordsrv link` in-game to link your account.'
-                            )
-                            .setColor(COLORS.WARNING)
-                            .setTimestamp();
-                        await interaction.editReply({ embeds: [embed] });
-                        return;
-                    }
-                    uuid = linkData.uuid;
-                    playerName = linkData.name;
-                } catch (err) {
-                    console.error(`[${cmdConfig.name}] Link resolve failed:`, err.message);
-                    await interaction.editReply({
-                        embeds: [errorEmbed('Failed to check your account link. The server may be offline.')],
-                    });
-                    return;
-                }
-            }
-
             // Collect all placeholders from the embed config
             const allPlaceholders = collectPlaceholders(cmdConfig.embed);
 
@@ -138,13 +106,39 @@ function buildDynamicCommand(cmdConfig) {
                 return;
             }
 
-            // Evaluate placeholders
-            let values;
+            // Resolve player and evaluate placeholders in a single bridge round trip
+            let profile;
             try {
-                const result = await evalPlaceholders(uuid, allPlaceholders);
-                values = result.values;
+                profile = await getProfile({
+                    ...(playerOverride ? { uuid: playerOverride } : { discordId: interaction.user.id }),
+                    placeholders: allPlaceholders,
+                    vote: false,
+                });
             } catch (err) {
-                console.error(`[${cmdConfig.name}] Placeholder eval failed:`, err.message);
+                console.error(`[${cmdConfig.name}] Profile query failed:`, err.message);
+                await interaction.editReply({
+                    embeds: [errorEmbed('Failed to fetch data from the Minecraft server.')],
+                });
+                return;
+            }
+
+            if (!playerOverride && !profile.link.linked) {
+                const embed = new EmbedBuilder()
+                    .setTitle('Account Not Linked')
+                    .setDescription(
+                        'Your Discord account is not linked to a Minecraft account.\n\n' +
+                        'Use `/discordsrv link` in-game to link your account.'
+                    )
+                    .setColor(COLORS.WARNING)
+                    .setTimestamp();
+                await interaction.editReply({ embeds: [embed] });
+                return;
+            }
+
+            const playerName = profile.link.name || playerOverride;
+            const values = profile.values;
+            if (!values || values.error) {
+                console.error(`[${cmdConfig.name}] PlaceholderAPI lookup ${values ? values.error : 'skipped'}`);
                 await interaction.editReply({
                     embeds: [errorEmbed('Failed to fetch data from the Minecraft server.')],
                 });
@@ -2,11 +2,53 @@
  * Bridge API client for communicating with RunbadBotBridge Paper plugin.
  */
 
+const http = require('node:http');
+
 const BRIDGE_URL = process.env.BRIDGE_URL || 'http://127.0.0.1:9585';
 const BRIDGE_TOKEN = process.env.BRIDGE_TOKEN;
+// Unix domain socket of the bridge (api.transport: nio, api.unix-socket); overrides BRIDGE_URL
+const BRIDGE_SOCKET = process.env.BRIDGE_SOCKET;
 
 const DEFAULT_TIMEOUT = 5000; // 5 seconds
 
+// Last ETag and body per GET URL, replayed when the bridge answers 304
+const ETAG_CACHE_MAX = 1000;
+const etagCache = new Map();
+
+const socketAgent = BRIDGE_SOCKET ? new http.Agent({ keepAlive: true }) : null;
+
+/**
+ * fetch() over the bridge's Unix socket. Returns the subset of Response used here.
+ */
+function socketFetch(url, { method, headers, body, signal }) {
+    return new Promise((resolve, reject) => {
+        const { pathname, search } = new URL(url);
+        const req = http.request({
+            socketPath: BRIDGE_SOCKET,
+            agent: socketAgent,
+            path: pathname + search,
+            method,
+            headers: body ? { ...headers, 'Content-Length': Buffer.byteLength(body) } : headers,
+            signal,
+        }, (res) => {
+            const chunks = [];
+            res.on('data', (chunk) => chunks.push(chunk));
+            res.on('error', reject);
+            res.on('end', () => {
+                const text = Buffer.concat(chunks).toString('utf8');
+                resolve({
+                    status: res.statusCode,
+                    ok: res.statusCode >= 200 && res.statusCode < 300,
+                    headers: { get: (name) => res.headers[name.toLowerCase()] ?? null },
+                    json: async () => JSON.parse(text),
+                });
+            });
+        });
+        req.on('error', reject);
+        req.end(body);
+    });
+}
+
 /**
  * Make an authenticated request to the bridge API.
  */
@@ -31,9 +73,26 @@ async function bridgeRequest(method, path, { query, body, timeout } = {}) {
         options.body = JSON.stringify(body);
     }
 
-    const response = await fetch(url, options);
+    const cached = method === 'GET' ? etagCache.get(url) : undefined;
+    if (cached) {
+        options.headers['If-None-Match'] = cached.etag;
+    }
+
+    const response = BRIDGE_SOCKET ? await socketFetch(url, options) : await fetch(url, options);
+    if (response.status === 304 && cached) {
+        return structuredClone(cached.data);
+    }
     const data = await response.json();
 
+    const etag = response.headers.get('etag');
+    if (method === 'GET' && response.ok && etag) {
+        etagCache.delete(url);
+        if (etagCache.size >= ETAG_CACHE_MAX) {
+            etagCache.delete(etagCache.keys().next().value);
+        }
+        etagCache.set(url, { etag, data: structuredClone(data) });
+    }
+
     if (!response.ok) {
         const err = new Error(data.message || `Bridge returned ${response.status}`);
         err.status = response.status;
@@ -50,9 +109,12 @@ async function bridgeRequest(method, path, { query, body, timeout } = {}) {
 async function checkHealth() {
     // Health endpoint doesn't need auth
     const url = `${BRIDGE_URL}/health`;
-    const response = await fetch(url, {
+    const options = {
+        method: 'GET',
+        headers: {},
         signal: AbortSignal.timeout(DEFAULT_TIMEOUT),
-    });
+    };
+    const response = BRIDGE_SOCKET ? await socketFetch(url, options) : await fetch(url, options);
     return response.json();
 }
 
@@ -67,15 +129,59 @@ async function resolveLink(discordId) {
     });
 }
 
+/**
+ * Resolve many Discord user IDs in one round trip (max 100 per call).
+ * @param {string[]} discordIds
+ * @returns {{ results: Object<string, { linked: boolean, uuid: string|null, name: string|null }> }}
+ */
+async function resolveLinks(discordIds) {
+    return bridgeRequest('POST', '/v1/link/resolve-batch', {
+        body: { discord_ids: discordIds },
+    });
+}
+
+/**
+ * Find the Discord user linked to a Minecraft account.
+ * @param {string} uuid - Minecraft player UUID
+ * @returns {{ linked: boolean, uuid: string, discord_id: string|null }}
+ */
+async function reverseLink(uuid) {
+    return bridgeRequest('GET', '/v1/link/reverse', {
+        query: { uuid },
+    });
+}
+
 /**
  * Get vote cooldown data for a player.
  * @param {string} uuid - Minecraft player UUID
  * @returns {{ uuid: string, sites: Array, queriedAt: number }}
  */
 async function getVoteNext(uuid) {
-    return bridgeRequest('GET', '/v1/vote/next', {
+    const data = await bridgeRequest('GET', '/v1/vote/next', {
         query: { uuid },
     });
+    // A 304 replays the earlier body, so bring the countdowns up to date
+    const now = Math.floor(Date.now() / 1000);
+    for (const site of data.sites || []) {
+        if (site.nextVoteEpoch > 0) {
+            site.remainingSeconds = Math.max(0, site.nextVoteEpoch - now);
+        }
+    }
+    data.queriedAt = now;
+    return data;
+}
+
+/**
+ * Get the players whose vote cooldown ended after a cursor.
+ * Call without a cursor to get the starting point; pass back data.cursor each time.
+ * When data.reset is true, entries were missed and players should be re-checked with getVoteNext.
+ * @param {number} [since] - cursor from the previous response
+ * @returns {{ cursor: number, reset: boolean, more: boolean, ready: Array<{ uuid: string, site: string, voteUrl: string|null, readyAt: number }> }}
+ */
+async function getVoteReady(since) {
+    return bridgeRequest('GET', '/v1/vote/ready', {
+        query: since !== undefined ? { since } : {},
+    });
 }
 
 /**
@@ -90,9 +196,117 @@ async function evalPlaceholders(uuid, placeholders) {
     });
 }
 
+/**
+ * Fetch link, vote status and placeholder values for a player in one round trip.
+ * @param {{ discordId?: string, uuid?: string, placeholders?: string[], vote?: boolean }} params
+ * Sections whose lookup could not be completed are { error: 'unavailable'|'failed'|'timeout' }.
+ * @returns {{ uuid: string|null, link: Object, vote?: { sites: Array }|{ error: string }, values?: Object, queriedAt: number }}
+ */
+async function getProfile({ discordId, uuid, placeholders, vote = true }) {
+    return bridgeRequest('POST', '/v1/profile', {
+        body: {
+            ...(discordId ? { discord_id: discordId } : { uuid }),
+            ...(placeholders && placeholders.length > 0 ? { placeholders } : {}),
+            vote,
+        },
+    });
+}
+
+/**
+ * Get the top of a configured leaderboard, and optionally a player's rank.
+ * @param {string} id - Leaderboard id from the bridge config
+ * @param {{ limit?: number, uuid?: string }} [options]
+ * @returns {{ id: string, size: number, entries: Array<{ rank: number, uuid: string, name: string, score: number, display: string }>, player?: Object|null }}
+ */
+async function getLeaderboard(id, { limit, uuid } = {}) {
+    return bridgeRequest('GET', `/v1/leaderboard/${encodeURIComponent(id)}`, {
+        query: {
+            ...(limit ? { limit } : {}),
+            ...(uuid ? { uuid } : {}),
+        },
+    });
+}
+
+/**
+ * Follow the bridge's event stream (/v1/events, NDJSON) until the signal aborts.
+ * Reconnects with backoff and resumes after the last sequence seen, so events
+ * published while disconnected are still delivered if the bridge kept them.
+ * @param {{ onEvent: (event: { seq: number, type: string, time: number, data: Object }) => void,
+ *           onReset?: () => void, since?: number, signal?: AbortSignal }} options
+ *   onReset is called when events were missed and state should be re-fetched by polling.
+ */
+function streamEvents({ onEvent, onReset, since, signal }) {
+    let lastSeq = since;
+    let delay = 1000;
+
+    const connect = () => {
+        if (signal?.aborted) return;
+        const url = new URL('/v1/events', BRIDGE_URL);
+        url.searchParams.set('format', 'ndjson');
+        if (lastSeq !== undefined) url.searchParams.set('since', String(lastSeq));
+
+        // end and error can both fire for one connection; reconnect once
+        let closed = false;
+        const reconnect = () => {
+            if (closed) return;
+            closed = true;
+            retry();
+        };
+
+        const transport = url.protocol === 'https:' ? require('node:https') : http;
+        const req = transport.request(url, {
+            ...(BRIDGE_SOCKET ? { socketPath: BRIDGE_SOCKET } : {}),
+            headers: { 'Authorization': `Bearer ${BRIDGE_TOKEN}` },
+            signal,
+        }, (res) => {
+            if (res.statusCode !== 200) {
+                res.resume();
+                return reconnect();
+            }
+            delay = 1000;
+            res.setEncoding('utf8');
+            let buffered = '';
+            res.on('data', (chunk) => {
+                buffered += chunk;
+                let newline;
+                while ((newline = buffered.indexOf('\n')) >= 0) {
+                    const line = buffered.slice(0, newline).trim();
+                    buffered = buffered.slice(newline + 1);
+                    if (!line) continue; // heartbeat
+                    const event = JSON.parse(line);
+                    lastSeq = event.seq;
+                    if (event.type === 'reset') {
+                        onReset?.();
+                    } else {
+                        onEvent(event);
+                    }
+                }
+            });
+            res.on('end', reconnect);
+            res.on('error', reconnect);
+        });
+        req.on('error', reconnect);
+        req.end();
+    };
+
+    const retry = () => {
+        if (signal?.aborted) return;
+        setTimeout(connect, delay);
+        delay = Math.min(delay * 2, 30000);
+    };
+
+    connect();
+}
+
 module.exports = {
     checkHealth,
     resolveLink,
+    resolveLinks,
+    reverseLink,
     getVoteNext,
+    getVoteReady,
     evalPlaceholders,
+    getProfile,
+    getLeaderboard,
+    streamEvents,
 };
@@ -0,0 +1,81 @@
+package com.runbad.bridge.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RateLimiter.tryAcquire with one or many threads.
+ *
+ * "sameClient" is the common production case: the bot is a single client, so
+ * every worker thread contends on one Client's arrival times. "ownClient" gives
+ * each thread its own IP, which only shares the client map. "rejected" measures
+ * the path for a client that is already over its limit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private RateLimiter open;
+    private RateLimiter saturated;
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        String ip;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int n = NEXT.incrementAndGet();
+            ip = "10.0." + (n >> 8 & 0xff) + "." + (n & 0xff);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // High enough that no request in the run is rejected
+        open = new RateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        saturated = new RateLimiter(1, 1);
+        saturated.tryAcquire("127.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean sameClient1() {
+        return open.tryAcquire("127.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean sameClient8() {
+        return open.tryAcquire("127.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean ownClient8(Client client) {
+        return open.tryAcquire(client.ip);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean rejected8() {
+        return saturated.tryAcquire("127.0.0.1");
+    }
+}
@@ -0,0 +1,112 @@
+package com.runbad.bridge.cache;
+
+import com.runbad.bridge.api.RequestParser;
+import com.runbad.bridge.integrations.DiscordSrvIntegration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache get/put sized and keyed like the link cache (snowflake -> LinkResult,
+ * 50000 entries) and the vote cache (uuid -> vote times, 10000 entries). Link
+ * lookups include parsing the id string, as DiscordSrvIntegration does.
+ *
+ * Both caches are filled to 90% of capacity, so puts of new keys push them over
+ * the limit and include the cost of trimming. The vote cache's VoteTimes can only
+ * be built by VotingPlugin data, so a stand-in value is stored; the cache never
+ * looks at values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    private static final int LINK_ENTRIES = 50_000;
+    private static final int VOTE_ENTRIES = 10_000;
+    private static final long TTL_MS = TimeUnit.HOURS.toMillis(1);
+
+    private LongTtlCache<DiscordSrvIntegration.LinkResult> linkCache;
+    private UuidTtlCache<Object> voteCache;
+    private String[] discordIds;
+    private UUID[] uuids;
+    private final DiscordSrvIntegration.LinkResult linked =
+            new DiscordSrvIntegration.LinkResult(true, "069a79f4-44e9-4726-a5be-fca90e38aaf5", "Notch");
+    private final Object voteTimes = new long[] {0L, 0L, 0L};
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        linkCache = new LongTtlCache<>(LINK_ENTRIES);
+        voteCache = new UuidTtlCache<>(VOTE_ENTRIES);
+        discordIds = new String[LINK_ENTRIES * 9 / 10];
+        uuids = new UUID[VOTE_ENTRIES * 9 / 10];
+        for (int i = 0; i < discordIds.length; i++) {
+            discordIds[i] = Long.toString(100000000000000000L + i * 104729L);
+            linkCache.put(RequestParser.parseSnowflake(discordIds[i]), linked, TTL_MS);
+        }
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+            voteCache.put(uuids[i], voteTimes, TTL_MS);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DiscordSrvIntegration.LinkResult linkGetHit() {
+        String id = discordIds[ThreadLocalRandom.current().nextInt(discordIds.length)];
+        return linkCache.get(RequestParser.parseSnowflake(id));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DiscordSrvIntegration.LinkResult linkGetMiss() {
+        return linkCache.get(RequestParser.parseSnowflake("999999999999999999"));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void linkPutExisting() {
+        String id = discordIds[ThreadLocalRandom.current().nextInt(discordIds.length)];
+        linkCache.put(RequestParser.parseSnowflake(id), linked, TTL_MS);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void linkPutNew() {
+        linkCache.put(ThreadLocalRandom.current().nextLong(1L << 62), linked, TTL_MS);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object voteGetHit() {
+        return voteCache.get(uuids[ThreadLocalRandom.current().nextInt(uuids.length)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void votePutExisting() {
+        UUID uuid = uuids[ThreadLocalRandom.current().nextInt(uuids.length)];
+        voteCache.put(uuid, voteTimes, TTL_MS);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void votePutNew() {
+        voteCache.put(UUID.randomUUID(), voteTimes, TTL_MS);
+    }
+}
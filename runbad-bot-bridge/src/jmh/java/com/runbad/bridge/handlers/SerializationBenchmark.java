@@ -0,0 +1,136 @@
+package com.runbad.bridge.handlers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.api.StubExchange;
+import com.runbad.bridge.integrations.DiscordSrvIntegration;
+import com.runbad.bridge.integrations.VotePluginIntegration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization with the handlers' own writers, on stand-in results.
+ *
+ * voteNext* is the /v1/vote/next body for a few sites, written by
+ * JsonResponseWriter and, for comparison, by Gson from an equivalent map.
+ * linkBatch writes a full 100-id /v1/link/resolve-batch response to an
+ * exchange, with and without gzip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final String uuid = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+    private final List<VotePluginIntegration.VoteSiteStatus> sites = new ArrayList<>();
+    private final Map<String, DiscordSrvIntegration.LinkResult> links = new LinkedHashMap<>();
+    private Map<String, Object> voteNextMap;
+
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"false", "true"})
+        public boolean gzip;
+
+        StubExchange exchange;
+
+        @Setup
+        public void setup() {
+            exchange = new StubExchange("POST", "/v1/link/resolve-batch");
+            if (gzip) {
+                exchange.header("Accept-Encoding", "gzip");
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        long now = System.currentTimeMillis() / 1000;
+        String[] names = {"PlanetMinecraft", "MinecraftServers", "TopG", "Minecraft-MP"};
+        for (int i = 0; i < names.length; i++) {
+            boolean ready = i % 2 == 0;
+            long next = ready ? now : now + 3600L * (i + 1);
+            sites.add(new VotePluginIntegration.VoteSiteStatus(names[i], ready, next,
+                    Instant.ofEpochSecond(next).toString(), next - now,
+                    "https://example.com/vote/" + names[i].toLowerCase()));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            String id = Long.toString(123456789012345678L + i * 7919L);
+            links.put(id, i % 5 == 0
+                    ? new DiscordSrvIntegration.LinkResult(false, null, null)
+                    : new DiscordSrvIntegration.LinkResult(true, UUID.nameUUIDFromBytes(id.getBytes()).toString(), "Player" + i));
+        }
+
+        List<Map<String, Object>> siteMaps = new ArrayList<>();
+        for (VotePluginIntegration.VoteSiteStatus site : sites) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("siteName", site.siteName);
+            m.put("readyNow", site.readyNow);
+            m.put("nextVoteEpoch", site.nextVoteEpoch);
+            m.put("nextVoteISO", site.nextVoteISO);
+            m.put("remainingSeconds", site.remainingSeconds);
+            m.put("voteUrl", site.voteUrl);
+            siteMaps.add(m);
+        }
+        voteNextMap = new LinkedHashMap<>();
+        voteNextMap.put("uuid", uuid);
+        voteNextMap.put("sites", siteMaps);
+        voteNextMap.put("queriedAt", now);
+    }
+
+    @Benchmark
+    public byte[] voteNextWriter() throws IOException {
+        return JsonResponseWriter.encode(out -> {
+            out.beginObject()
+                .name("uuid").value(uuid)
+                .name("sites");
+            VoteNextHandler.writeSites(out, sites);
+            out.name("queriedAt").value(System.currentTimeMillis() / 1000)
+                .endObject();
+        });
+    }
+
+    @Benchmark
+    public String voteNextGson() {
+        return GSON.toJson(voteNextMap);
+    }
+
+    @Benchmark
+    public long linkBatch(Batch batch) throws IOException {
+        StubExchange exchange = batch.exchange;
+        exchange.reset();
+        try (JsonResponseWriter out = new JsonResponseWriter(exchange, 200)) {
+            out.beginObject().name("results").beginObject();
+            for (Map.Entry<String, DiscordSrvIntegration.LinkResult> entry : links.entrySet()) {
+                out.name(entry.getKey());
+                LinkResolveHandler.writeLink(out, entry.getValue());
+            }
+            out.endObject().endObject();
+        }
+        return exchange.getBytesWritten();
+    }
+}
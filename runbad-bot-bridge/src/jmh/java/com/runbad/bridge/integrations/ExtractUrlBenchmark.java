@@ -0,0 +1,38 @@
+package com.runbad.bridge.integrations;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VotePluginIntegration.extractUrl on the formats VoteSite.getVoteURL() returns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractUrlBenchmark {
+
+    private String component = "({Text=\"Vote on PlanetMinecraft\",url=\"https://www.planetminecraft.com/server/runbad/vote/\"})";
+    private String plain = "https://www.planetminecraft.com/server/runbad/vote/";
+
+    @Benchmark
+    public String textComponent() {
+        return VotePluginIntegration.extractUrl(component);
+    }
+
+    @Benchmark
+    public String plainUrl() {
+        return VotePluginIntegration.extractUrl(plain);
+    }
+}
@@ -0,0 +1,57 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.loadtest.Keys;
+import com.runbad.bridge.loadtest.Latency;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * DiscordSRV stand-in: links come from {@link Keys}. A bulk lookup costs one call,
+ * like a single database query.
+ */
+public class FakeDiscordSrvIntegration extends DiscordSrvIntegration {
+
+    private final Latency latency;
+
+    public FakeDiscordSrvIntegration(RunbadBotBridge plugin, Latency latency) {
+        super(plugin);
+        this.latency = latency;
+    }
+
+    @Override
+    UUID fetchUuid(String discordId) {
+        latency.call();
+        long n = Keys.fromDiscordId(discordId);
+        return n >= 0 && Keys.isLinked(n) ? Keys.uuid(n) : null;
+    }
+
+    @Override
+    Map<String, UUID> fetchUuids(Set<String> discordIds) {
+        latency.call();
+        Map<String, UUID> uuids = new HashMap<>();
+        for (String discordId : discordIds) {
+            long n = Keys.fromDiscordId(discordId);
+            if (n >= 0 && Keys.isLinked(n)) {
+                uuids.put(discordId, Keys.uuid(n));
+            }
+        }
+        return uuids;
+    }
+
+    @Override
+    String fetchDiscordId(UUID uuid) {
+        latency.call();
+        long n = Keys.fromUuid(uuid);
+        return n >= 0 && Keys.isLinked(n) ? Keys.discordId(n) : null;
+    }
+
+    @Override
+    Map<String, UUID> fetchLinkedAccounts() {
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,26 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.loadtest.Latency;
+import org.bukkit.OfflinePlayer;
+
+/**
+ * PlaceholderAPI stand-in: every placeholder evaluates to a number derived from
+ * the player and placeholder. With placeholders.main-thread the injected latency
+ * is spent on the stand-in server thread, as it would be on a real one.
+ */
+public class FakePlaceholderApiIntegration extends PlaceholderApiIntegration {
+
+    private final Latency latency;
+
+    public FakePlaceholderApiIntegration(RunbadBotBridge plugin, Latency latency) {
+        super(plugin);
+        this.latency = latency;
+    }
+
+    @Override
+    String setPlaceholder(OfflinePlayer player, String placeholder) {
+        latency.call();
+        return Integer.toString(Math.floorMod(player.getUniqueId().hashCode() * 31 + placeholder.hashCode(), 100_000));
+    }
+}
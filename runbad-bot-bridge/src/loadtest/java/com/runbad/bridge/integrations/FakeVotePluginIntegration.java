@@ -0,0 +1,48 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.loadtest.Keys;
+import com.runbad.bridge.loadtest.Latency;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VotingPlugin stand-in with three 24-hour sites. Each player's last votes are
+ * derived from their UUID: some never voted, some are still on cooldown.
+ */
+public class FakeVotePluginIntegration extends VotePluginIntegration {
+
+    private static final long COOLDOWN_MS = TimeUnit.HOURS.toMillis(24);
+
+    private final Latency latency;
+    private final SiteTable table = new SiteTable(new SiteInfo[] {
+        new SiteInfo("planetminecraft", "PlanetMinecraft", "https://example.com/vote/pmc", COOLDOWN_MS),
+        new SiteInfo("minecraftservers", "MinecraftServers", "https://example.com/vote/mcso", COOLDOWN_MS),
+        new SiteInfo("topg", "TopG", "https://example.com/vote/topg", COOLDOWN_MS)
+    });
+
+    public FakeVotePluginIntegration(RunbadBotBridge plugin, Latency latency) {
+        super(plugin);
+        this.latency = latency;
+    }
+
+    @Override
+    SiteTable getSiteTable() {
+        return table;
+    }
+
+    @Override
+    long[] fetchLastVotes(UUID uuid, SiteInfo[] sites) {
+        latency.call();
+        long now = System.currentTimeMillis();
+        long seed = Keys.fromUuid(uuid) * 0x9E3779B97F4A7C15L;
+        long[] lastVoteMs = new long[sites.length];
+        for (int i = 0; i < lastVoteMs.length; i++) {
+            long bits = Long.rotateLeft(seed, i * 17) >>> 1;
+            // A third never voted; the rest voted within the last 36 hours
+            lastVoteMs[i] = bits % 3 == 0 ? 0 : now - bits % TimeUnit.HOURS.toMillis(36);
+        }
+        return lastVoteMs;
+    }
+}
@@ -0,0 +1,81 @@
+package com.runbad.bridge.loadtest;
+
+import com.runbad.bridge.cache.LongTtlCache;
+import com.runbad.bridge.cache.TtlCache;
+import com.runbad.bridge.cache.UuidTtlCache;
+
+import java.lang.ref.Reference;
+import java.util.function.IntFunction;
+
+/**
+ * Heap per entry of the link and vote caches: the String-keyed TtlCache they used
+ * to be against the primitive-keyed caches they are now. Every entry shares one
+ * value object, so the figures are the cost of the cache itself; the values
+ * (LinkResult, VoteTimes) cost the same either way.
+ *
+ * ./gradlew cacheFootprint [--args="ENTRIES"]
+ */
+public final class CacheFootprint {
+
+    private static final long TTL_MS = 3_600_000;
+    private static final Object VALUE = new Object();
+
+    private CacheFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        System.out.printf("Heap per cached entry, %d entries (shared value, %s)%n%n", entries,
+                System.getProperty("java.vm.name"));
+        System.out.printf("%-36s %10s%n", "cache", "bytes");
+
+        measure("link: TtlCache<String, V>", entries, n -> {
+            TtlCache<String, Object> cache = new TtlCache<>(n);
+            for (int i = 0; i < n; i++) {
+                cache.put(Keys.discordId(i), VALUE, TTL_MS);
+            }
+            return cache;
+        });
+        measure("link: LongTtlCache<V>", entries, n -> {
+            LongTtlCache<Object> cache = new LongTtlCache<>(n);
+            for (int i = 0; i < n; i++) {
+                cache.put(Long.parseLong(Keys.discordId(i)), VALUE, TTL_MS);
+            }
+            return cache;
+        });
+        measure("vote: TtlCache<String, V>", entries, n -> {
+            TtlCache<String, Object> cache = new TtlCache<>(n);
+            for (int i = 0; i < n; i++) {
+                cache.put(Keys.uuid(i).toString(), VALUE, TTL_MS);
+            }
+            return cache;
+        });
+        measure("vote: UuidTtlCache<V>", entries, n -> {
+            UuidTtlCache<Object> cache = new UuidTtlCache<>(n);
+            for (int i = 0; i < n; i++) {
+                cache.put(Keys.uuid(i), VALUE, TTL_MS);
+            }
+            return cache;
+        });
+    }
+
+    private static void measure(String name, int entries, IntFunction<Object> fill) {
+        // Warm up so class loading and JIT data aren't counted
+        fill.apply(Math.min(entries, 1000));
+        long before = usedHeap();
+        Object cache = fill.apply(entries);
+        long after = usedHeap();
+        Reference.reachabilityFence(cache);
+        System.out.printf("%-36s %10.1f%n", name, (after - before) / (double) entries);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
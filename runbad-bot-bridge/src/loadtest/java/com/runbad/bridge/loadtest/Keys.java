@@ -0,0 +1,53 @@
+package com.runbad.bridge.loadtest;
+
+import java.util.UUID;
+
+/**
+ * The stand-in player population. Player n has a fixed Discord id and UUID, so the
+ * load generator and the stand-in integrations agree on who exists without any
+ * shared state. Every tenth player is not linked.
+ */
+public final class Keys {
+
+    private static final long DISCORD_BASE = 300_000_000_000_000_000L;
+    private static final long UUID_MSB = 0x6c6f6164_74657374L; // "loadtest"
+
+    private Keys() {
+    }
+
+    public static String discordId(long n) {
+        return Long.toString(DISCORD_BASE + n);
+    }
+
+    public static UUID uuid(long n) {
+        return new UUID(UUID_MSB, n);
+    }
+
+    public static boolean isLinked(long n) {
+        return n % 10 != 0;
+    }
+
+    public static String name(long n) {
+        return "Player" + n;
+    }
+
+    /**
+     * Player number for a Discord id, or -1 if it is not one of ours.
+     */
+    public static long fromDiscordId(String discordId) {
+        try {
+            long n = Long.parseLong(discordId) - DISCORD_BASE;
+            return n >= 0 ? n : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Player number for a UUID, or -1 if it is not one of ours.
+     */
+    public static long fromUuid(UUID uuid) {
+        return uuid.getMostSignificantBits() == UUID_MSB && uuid.getLeastSignificantBits() >= 0
+                ? uuid.getLeastSignificantBits() : -1;
+    }
+}
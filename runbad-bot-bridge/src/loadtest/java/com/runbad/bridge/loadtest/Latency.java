@@ -0,0 +1,101 @@
+package com.runbad.bridge.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency and failure injected into a stand-in integration call.
+ *
+ * Each call takes base plus an exponentially distributed extra with mean jitter,
+ * which gives the long right tail real storage backends have, then fails with
+ * probability errorRate.
+ */
+public final class Latency {
+
+    private final String name;
+    private final long baseNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public Latency(String name, double baseMs, double jitterMs, double errorRate) {
+        if (baseMs < 0 || jitterMs < 0 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException(name + ": latency must be >= 0 and error rate within 0-1");
+        }
+        this.name = name;
+        this.baseNanos = (long) (baseMs * 1_000_000);
+        this.jitterNanos = (long) (jitterMs * 1_000_000);
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Wait out one call's latency, then maybe throw the injected failure.
+     */
+    public void call() {
+        calls.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nanos = baseNanos;
+        if (jitterNanos > 0) {
+            nanos += (long) (-Math.log(1 - random.nextDouble()) * jitterNanos);
+        }
+        sleep(nanos);
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            failures.increment();
+            throw new IllegalStateException(name + ": injected failure");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public String describe() {
+        return String.format("%s %.2fms + ~%.2fms, %.1f%% errors", name,
+                baseNanos / 1e6, jitterNanos / 1e6, errorRate * 100);
+    }
+
+    /**
+     * parkNanos may return early, so park until the deadline has passed.
+     */
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    static double parseMs(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) {
+            return Double.parseDouble(v.substring(0, v.length() - 2));
+        }
+        if (v.endsWith("us")) {
+            return Double.parseDouble(v.substring(0, v.length() - 2)) / 1000;
+        }
+        if (v.endsWith("s")) {
+            return Double.parseDouble(v.substring(0, v.length() - 1)) * TimeUnit.SECONDS.toMillis(1);
+        }
+        return Double.parseDouble(v);
+    }
+}
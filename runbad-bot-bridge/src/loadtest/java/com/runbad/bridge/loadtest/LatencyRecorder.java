@@ -0,0 +1,95 @@
+package com.runbad.bridge.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Every latency sample of one endpoint, kept exactly so percentiles up to p99.9
+ * are not bucket estimates. A minute at a few thousand requests per second is a
+ * few MB of samples.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[4096];
+    private int size;
+    private long ok;
+    private long errors;
+    private long failed;
+
+    /**
+     * A response: 2xx and 304 count as ok, any other status as an error.
+     */
+    synchronized void record(long nanos, int status) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        if (status >= 200 && status < 300 || status == 304) {
+            ok++;
+        } else {
+            errors++;
+        }
+    }
+
+    /**
+     * No response at all: connection error or client timeout.
+     */
+    synchronized void recordFailure() {
+        failed++;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, ok, errors, failed);
+    }
+
+    static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder all = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            synchronized (recorder) {
+                if (all.size + recorder.size > all.samples.length) {
+                    all.samples = Arrays.copyOf(all.samples, all.size + recorder.size);
+                }
+                System.arraycopy(recorder.samples, 0, all.samples, all.size, recorder.size);
+                all.size += recorder.size;
+                all.ok += recorder.ok;
+                all.errors += recorder.errors;
+                all.failed += recorder.failed;
+            }
+        }
+        return all;
+    }
+
+    static final class Snapshot {
+        final long[] sorted;
+        final long ok;
+        final long errors;
+        final long failed;
+
+        Snapshot(long[] sorted, long ok, long errors, long failed) {
+            this.sorted = sorted;
+            this.ok = ok;
+            this.errors = errors;
+            this.failed = failed;
+        }
+
+        long count() {
+            return sorted.length + failed;
+        }
+
+        /**
+         * Nearest-rank percentile in nanoseconds, 0 with no samples.
+         */
+        long percentile(double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100 * sorted.length);
+            return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+        }
+
+        long max() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.runbad.bridge.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: requests are sent at their scheduled times whatever the bridge
+ * is doing, and each latency is measured from the scheduled time rather than the
+ * actual send. A slow bridge therefore shows up as high latency instead of
+ * quietly lowering the request rate (coordinated omission).
+ */
+final class LoadGenerator {
+
+    private final LoadTestOptions options;
+    private final URI base;
+    private final String token;
+    private final HttpClient client;
+    private final ExecutorService clientExecutor;
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final String[] endpoints;
+    private final int[] cumulativeWeights;
+    private final KeyPicker keys;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private long maxSendLagNanos;
+
+    LoadGenerator(LoadTestOptions options, String token) {
+        this.options = options;
+        this.base = URI.create("http://127.0.0.1:" + options.port);
+        this.token = token;
+        AtomicInteger threads = new AtomicInteger();
+        this.clientExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "Load client " + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        endpoints = options.mix.keySet().toArray(new String[0]);
+        cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += options.mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+            recorders.put(endpoints[i], new LatencyRecorder());
+        }
+        keys = new KeyPicker(options.keys, options.zipf);
+    }
+
+    /**
+     * Send the warm-up and measured load, then wait for outstanding requests.
+     * Only requests scheduled after the warm-up are recorded.
+     */
+    void run() throws InterruptedException {
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + (long) (options.warmupSeconds * 1e9);
+        long end = measureFrom + (long) (options.durationSeconds * 1e9);
+
+        long next = start;
+        while (next < end) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            boolean measured = next >= measureFrom;
+            if (measured) {
+                maxSendLagNanos = Math.max(maxSendLagNanos, now - next);
+            }
+            send(next, measured);
+            double gap = options.poisson
+                    ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos
+                    : meanGapNanos;
+            next += Math.max(1, (long) gap);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.timeoutMs + 1000);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        clientExecutor.shutdownNow();
+    }
+
+    Map<String, LatencyRecorder> getRecorders() {
+        return recorders;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    long getMaxSendLagNanos() {
+        return maxSendLagNanos;
+    }
+
+    private void send(long scheduledNanos, boolean measured) {
+        if (inFlight.get() >= options.maxInFlight) {
+            if (measured) {
+                dropped.increment();
+            }
+            return;
+        }
+        String endpoint = pickEndpoint();
+        HttpRequest request = buildRequest(endpoint);
+        LatencyRecorder recorder = recorders.get(endpoint);
+
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long latency = System.nanoTime() - scheduledNanos;
+            inFlight.decrementAndGet();
+            if (!measured) {
+                return;
+            }
+            if (error != null) {
+                recorder.recordFailure();
+            } else {
+                recorder.record(latency, response.statusCode());
+            }
+        });
+    }
+
+    private String pickEndpoint() {
+        int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private HttpRequest buildRequest(String endpoint) {
+        long n = keys.next();
+        switch (endpoint) {
+            case "health":
+                return get("/health");
+            case "link":
+                return get("/v1/link/resolve?discord_id=" + Keys.discordId(n));
+            case "link-batch": {
+                StringBuilder ids = new StringBuilder();
+                for (int i = 0; i < options.batchSize; i++) {
+                    ids.append(i == 0 ? "" : ",").append('"').append(Keys.discordId(i == 0 ? n : keys.next())).append('"');
+                }
+                return post("/v1/link/resolve-batch", "{\"discord_ids\":[" + ids + "]}");
+            }
+            case "vote":
+                return get("/v1/vote/next?uuid=" + Keys.uuid(n));
+            case "placeholders":
+                return post("/v1/placeholders/eval",
+                        "{\"uuid\":\"" + Keys.uuid(n) + "\",\"placeholders\":" + placeholderArray() + "}");
+            case "profile":
+                return post("/v1/profile", "{\"discord_id\":\"" + Keys.discordId(n) + "\",\"placeholders\":"
+                        + placeholderArray() + ",\"vote\":true}");
+            default:
+                throw new IllegalStateException("Unknown endpoint " + endpoint);
+        }
+    }
+
+    private String placeholderArray() {
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < options.placeholders.size(); i++) {
+            array.append(i == 0 ? "" : ",").append('"').append(options.placeholders.get(i)).append('"');
+        }
+        return array.append(']').toString();
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(Duration.ofMillis(options.timeoutMs))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    /**
+     * Player numbers, uniform or Zipf-distributed. With Zipf the most popular
+     * ranks are scattered over the key space so hot players are not all
+     * neighbours (or all unlinked).
+     */
+    static final class KeyPicker {
+        private static final long SCATTER = 1_000_003; // prime
+
+        private final long keys;
+        private final double[] cdf; // null for uniform
+
+        KeyPicker(long keys, double zipf) {
+            this.keys = keys;
+            if (zipf <= 0) {
+                this.cdf = null;
+                return;
+            }
+            if (keys > 10_000_000) {
+                throw new IllegalArgumentException("--zipf supports up to 10000000 keys");
+            }
+            cdf = new double[(int) keys];
+            double sum = 0;
+            for (int i = 0; i < cdf.length; i++) {
+                sum += 1 / Math.pow(i + 1, zipf);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < cdf.length; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        long next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (cdf == null) {
+                return random.nextLong(keys);
+            }
+            int rank = Arrays.binarySearch(cdf, random.nextDouble());
+            if (rank < 0) {
+                rank = Math.min(-rank - 1, cdf.length - 1);
+            }
+            // A bijection on [0, keys) unless keys is a multiple of the prime
+            return keys % SCATTER == 0 ? rank : (rank * SCATTER + 1) % keys;
+        }
+    }
+
+    static String newToken() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,157 @@
+package com.runbad.bridge.loadtest;
+
+import com.runbad.bridge.cache.BoundedCache;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import sun.reflect.ReflectionFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs the bridge's HTTP API in-process against stand-in DiscordSRV, VotingPlugin
+ * and PlaceholderAPI integrations, drives it with open-loop load and reports
+ * throughput and latency percentiles per endpoint.
+ *
+ * Use it to compare api.executor, api.transport and cache settings before a
+ * deploy: run the expected request mix at and above the expected rate, with the
+ * integration latencies measured on the real server. See LoadTestOptions for the
+ * options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(LoadTestOptions.USAGE);
+            return;
+        }
+
+        String token = LoadGenerator.newToken();
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("api.host", "127.0.0.1");
+        config.put("api.port", options.port);
+        config.put("api.token", token);
+        config.put("api.unix-socket", ""); // the load client speaks TCP
+        config.put("rate-limit.max-per-minute", Integer.MAX_VALUE);
+        config.put("rate-limit.max-per-second", Integer.MAX_VALUE);
+        config.put("logging.log-requests", false);
+        config.putAll(options.config);
+
+        StandInServer standIn = new StandInServer();
+        Bukkit.setServer(standIn.getServer());
+        standIn.simulateTickLoad(options.tickLoadMs);
+
+        File dataFolder = Files.createTempDirectory("runbad-loadtest").toFile();
+        dataFolder.deleteOnExit();
+        LoadTestPlugin plugin = createPlugin(standIn, dataFolder);
+        plugin.start(config, options.discordSrv, options.votingPlugin, options.placeholderApi);
+
+        System.out.printf("Load test: %s req/s %s for %ss after %ss warm-up, %d keys (%s)%n",
+                trim(options.rate), options.poisson ? "poisson" : "constant", trim(options.durationSeconds),
+                trim(options.warmupSeconds), options.keys, options.zipf > 0 ? "zipf " + trim(options.zipf) : "uniform");
+        System.out.println("Bridge: executor " + plugin.getApiServer().getExecutorDescription()
+                + ", transport " + plugin.getApiServer().getTransportDescription());
+        System.out.println("Stand-ins: " + options.discordSrv.describe() + "; " + options.votingPlugin.describe()
+                + "; " + options.placeholderApi.describe()
+                + (options.tickLoadMs > 0 ? "; tick load " + trim(options.tickLoadMs) + "ms" : ""));
+        System.out.println();
+
+        LoadGenerator generator = new LoadGenerator(options, token);
+        try {
+            generator.run();
+        } finally {
+            plugin.stop();
+            standIn.shutdown();
+        }
+
+        report(options, generator, plugin);
+        System.exit(0);
+    }
+
+    /**
+     * A plugin outside a server: JavaPlugin's initialization constructor, run on a
+     * new LoadTestPlugin in place of RunbadBotBridge's constructor, which would
+     * require a plugin class loader.
+     */
+    @SuppressWarnings({"deprecation", "removal"})
+    private static LoadTestPlugin createPlugin(StandInServer standIn, File dataFolder) throws Exception {
+        PluginDescriptionFile description;
+        try (InputStream in = LoadTest.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            if (in == null) {
+                throw new IllegalStateException("plugin.yml not on the classpath");
+            }
+            description = new PluginDescriptionFile(in);
+        }
+        JavaPluginLoader loader = new JavaPluginLoader(standIn.getServer());
+        Constructor<JavaPlugin> init = JavaPlugin.class.getDeclaredConstructor(
+                JavaPluginLoader.class, PluginDescriptionFile.class, File.class, File.class);
+        Constructor<?> constructor = ReflectionFactory.getReflectionFactory()
+                .newConstructorForSerialization(LoadTestPlugin.class, init);
+        constructor.setAccessible(true);
+        return (LoadTestPlugin) constructor.newInstance(loader, description, dataFolder,
+                new File(dataFolder, "RunbadBotBridge.jar"));
+    }
+
+    private static void report(LoadTestOptions options, LoadGenerator generator, LoadTestPlugin plugin) {
+        System.out.printf("%-14s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "failed", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<String, LatencyRecorder> entry : generator.getRecorders().entrySet()) {
+            printRow(entry.getKey(), entry.getValue().snapshot(), options.durationSeconds);
+        }
+        printRow("all", LatencyRecorder.merge(generator.getRecorders().values()).snapshot(), options.durationSeconds);
+        System.out.println();
+
+        System.out.printf("Client: %d dropped at max-in-flight %d, max send lag %s%n",
+                generator.getDropped(), options.maxInFlight, ms(generator.getMaxSendLagNanos()));
+        System.out.println("Stand-in calls (incl. warm-up): " + calls(options.discordSrv) + ", " + calls(options.votingPlugin)
+                + ", " + calls(options.placeholderApi));
+        System.out.println("Caches (incl. warm-up): " + cache("link", plugin.getDiscordSrv().getCache())
+                + ", " + cache("vote", plugin.getVotePlugin().getCache())
+                + ", " + cache("placeholder", plugin.getPlaceholderApi().getCache()));
+        if (generator.getDropped() > 0 || generator.getMaxSendLagNanos() > 10_000_000) {
+            System.out.println("Note: the client could not keep to the schedule; latencies include its backlog.");
+        }
+    }
+
+    private static void printRow(String name, LatencyRecorder.Snapshot s, double seconds) {
+        System.out.printf("%-14s %9d %9.1f %7d %7d %9s %9s %9s %9s %9s%n",
+                name, s.count(), s.count() / seconds, s.errors, s.failed,
+                ms(s.percentile(50)), ms(s.percentile(90)), ms(s.percentile(99)), ms(s.percentile(99.9)),
+                ms(s.max()));
+    }
+
+    private static String calls(Latency latency) {
+        return latency.getName() + " " + latency.getCalls() + " (" + latency.getFailures() + " failed)";
+    }
+
+    private static String cache(String name, BoundedCache cache) {
+        return String.format("%s %.1f%% hits (%d entries)", name, cache.getHitRatio() * 100, cache.size());
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.2fms", nanos / 1e6);
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
@@ -0,0 +1,206 @@
+package com.runbad.bridge.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options for {@link LoadTest}. Every option but --help is --name=value.
+ */
+final class LoadTestOptions {
+
+    static final List<String> ENDPOINTS = List.of("health", "link", "link-batch", "vote", "placeholders", "profile");
+
+    static final String USAGE = String.join("\n",
+        "Usage: ./gradlew loadTest --args=\"[options]\"",
+        "",
+        "  --help                This text",
+        "",
+        "Load:",
+        "  --rate=N              Requests per second, sent on schedule whether or not",
+        "                        earlier ones have finished (open loop). Default 200",
+        "  --duration=S          Measured seconds. Default 30",
+        "  --warmup=S            Seconds of load before measuring. Default 5",
+        "  --arrivals=MODE       poisson (random gaps) or constant. Default poisson",
+        "  --mix=E:W,...         Endpoint weights. Endpoints: " + String.join(", ", ENDPOINTS),
+        "                        Default link:40,vote:30,placeholders:15,profile:10,link-batch:5",
+        "  --keys=N              Distinct players requested. Default 10000",
+        "  --zipf=S              Key popularity skew; 0 is uniform, ~1 is a few hot players. Default 0",
+        "  --batch-size=N        Discord ids per link-batch request. Default 10",
+        "  --placeholders=P,...  Placeholders for placeholders/profile requests.",
+        "                        Default %vault_eco_balance%,%statistic_seconds_played%",
+        "  --max-in-flight=N     Requests outstanding before new ones are dropped. Default 2000",
+        "  --timeout=MS          Per-request timeout. Default 10000",
+        "",
+        "Stand-in integrations (LATENCY[,JITTER[,ERROR_RATE]], e.g. 2ms,1ms,0.01):",
+        "  --discordsrv=...      Per link lookup. Default 1ms,1ms,0",
+        "  --votingplugin=...    Per user load. Default 2ms,2ms,0",
+        "  --placeholderapi=...  Per placeholder (main thread if placeholders.main-thread). Default 0.05ms,0,0",
+        "  --tick-load=MS        Server-thread time used by the \"game\" each tick. Default 0",
+        "",
+        "Bridge:",
+        "  --port=N              API port. Default 19585",
+        "  --set=PATH=VALUE      Override a config.yml value; repeatable,",
+        "                        e.g. --set=api.executor=pool --set=cache.link-ttl=60");
+
+    boolean help;
+    double rate = 200;
+    double durationSeconds = 30;
+    double warmupSeconds = 5;
+    boolean poisson = true;
+    final Map<String, Integer> mix = new LinkedHashMap<>();
+    long keys = 10_000;
+    double zipf = 0;
+    int batchSize = 10;
+    List<String> placeholders = List.of("%vault_eco_balance%", "%statistic_seconds_played%");
+    int maxInFlight = 2000;
+    long timeoutMs = 10_000;
+    int port = 19585;
+    double tickLoadMs = 0;
+    Latency discordSrv = new Latency("discordsrv", 1, 1, 0);
+    Latency votingPlugin = new Latency("votingplugin", 2, 2, 0);
+    Latency placeholderApi = new Latency("placeholderapi", 0.05, 0, 0);
+    final Map<String, Object> config = new LinkedHashMap<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        options.parseMix("link:40,vote:30,placeholders:15,profile:10,link-batch:5");
+        for (String arg : args) {
+            if (arg.equals("--help")) {
+                options.help = true;
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            try {
+                options.apply(name, value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + name + ": " + value);
+            }
+        }
+        return options;
+    }
+
+    private void apply(String name, String value) {
+        switch (name) {
+            case "rate":
+                rate = positive(name, Double.parseDouble(value));
+                break;
+            case "duration":
+                durationSeconds = positive(name, Double.parseDouble(value));
+                break;
+            case "warmup":
+                warmupSeconds = Math.max(0, Double.parseDouble(value));
+                break;
+            case "arrivals":
+                if (!value.equals("poisson") && !value.equals("constant")) {
+                    throw new IllegalArgumentException("--arrivals must be poisson or constant");
+                }
+                poisson = value.equals("poisson");
+                break;
+            case "mix":
+                mix.clear();
+                parseMix(value);
+                break;
+            case "keys":
+                keys = (long) positive(name, Long.parseLong(value));
+                break;
+            case "zipf":
+                zipf = Math.max(0, Double.parseDouble(value));
+                break;
+            case "batch-size":
+                batchSize = (int) positive(name, Integer.parseInt(value));
+                break;
+            case "placeholders":
+                placeholders = new ArrayList<>(Arrays.asList(value.split(",")));
+                break;
+            case "max-in-flight":
+                maxInFlight = (int) positive(name, Integer.parseInt(value));
+                break;
+            case "timeout":
+                timeoutMs = (long) positive(name, Long.parseLong(value));
+                break;
+            case "port":
+                port = Integer.parseInt(value);
+                break;
+            case "tick-load":
+                tickLoadMs = Math.max(0, Latency.parseMs(value));
+                break;
+            case "discordsrv":
+                discordSrv = parseLatency("discordsrv", value);
+                break;
+            case "votingplugin":
+                votingPlugin = parseLatency("votingplugin", value);
+                break;
+            case "placeholderapi":
+                placeholderApi = parseLatency("placeholderapi", value);
+                break;
+            case "set":
+                int eq = value.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("--set needs PATH=VALUE, got: " + value);
+                }
+                config.put(value.substring(0, eq), configValue(value.substring(eq + 1)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    private void parseMix(String value) {
+        for (String part : value.split(",")) {
+            String[] kv = part.split(":", 2);
+            if (!ENDPOINTS.contains(kv[0])) {
+                throw new IllegalArgumentException("Unknown endpoint in --mix: " + kv[0]);
+            }
+            int weight = kv.length == 2 ? Integer.parseInt(kv[1]) : 1;
+            if (weight > 0) {
+                mix.put(kv[0], weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix has no endpoint with a positive weight");
+        }
+    }
+
+    private static Latency parseLatency(String name, String value) {
+        String[] parts = value.split(",");
+        double base = Latency.parseMs(parts[0]);
+        double jitter = parts.length > 1 ? Latency.parseMs(parts[1]) : 0;
+        double errors = parts.length > 2 ? Double.parseDouble(parts[2]) : 0;
+        return new Latency(name, base, jitter, errors);
+    }
+
+    /**
+     * Config values typed the way YAML would read them.
+     */
+    private static Object configValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            long number = Long.parseLong(value);
+            return number == (int) number ? (Object) (int) number : (Object) number;
+        } catch (NumberFormatException ignored) {
+            // not an integer
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ignored) {
+            return value;
+        }
+    }
+
+    private static double positive(String name, double value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return value;
+    }
+}
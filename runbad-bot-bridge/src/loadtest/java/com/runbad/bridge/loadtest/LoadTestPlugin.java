@@ -0,0 +1,93 @@
+package com.runbad.bridge.loadtest;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.HttpApiServer;
+import com.runbad.bridge.integrations.DiscordSrvIntegration;
+import com.runbad.bridge.integrations.FakeDiscordSrvIntegration;
+import com.runbad.bridge.integrations.FakePlaceholderApiIntegration;
+import com.runbad.bridge.integrations.FakeVotePluginIntegration;
+import com.runbad.bridge.integrations.PlaceholderApiIntegration;
+import com.runbad.bridge.integrations.VotePluginIntegration;
+import com.runbad.bridge.leaderboard.LeaderboardManager;
+import com.runbad.bridge.metrics.BridgeMetrics;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The bridge wired to stand-in integrations instead of the real plugins. Only the
+ * HTTP API runs: no listeners, no event stream and no vote-ready tracking.
+ *
+ * Created by LoadTest without running RunbadBotBridge's constructor, so nothing
+ * here or in RunbadBotBridge is initialized until {@link #start}.
+ */
+public class LoadTestPlugin extends RunbadBotBridge {
+
+    private DiscordSrvIntegration discordSrv;
+    private VotePluginIntegration votePlugin;
+    private PlaceholderApiIntegration placeholderApi;
+    private LeaderboardManager leaderboards;
+    private HttpApiServer apiServer;
+    private BridgeMetrics metrics;
+
+    /**
+     * Apply config overrides on top of the default config.yml, then start the
+     * stand-in integrations and the HTTP API.
+     */
+    void start(Map<String, Object> config, Latency discordLatency, Latency voteLatency,
+               Latency placeholderLatency) throws IOException {
+        for (Map.Entry<String, Object> entry : config.entrySet()) {
+            getConfig().set(entry.getKey(), entry.getValue());
+        }
+        metrics = new BridgeMetrics();
+        discordSrv = new FakeDiscordSrvIntegration(this, discordLatency);
+        votePlugin = new FakeVotePluginIntegration(this, voteLatency);
+        placeholderApi = new FakePlaceholderApiIntegration(this, placeholderLatency);
+        leaderboards = new LeaderboardManager(this);
+        getMetrics().registerCache("link", discordSrv.getCache(), discordSrv.getLookups());
+        getMetrics().registerCache("vote", votePlugin.getCache(), votePlugin.getLookups());
+        getMetrics().registerCache("placeholder", placeholderApi.getCache(), placeholderApi.getEvaluations());
+
+        apiServer = new HttpApiServer(this, getConfig().getString("api.host"), getConfig().getInt("api.port"),
+                getConfig().getString("api.token"));
+        apiServer.start();
+    }
+
+    void stop() {
+        if (apiServer != null) {
+            apiServer.stop();
+        }
+        if (placeholderApi != null) {
+            placeholderApi.shutdown();
+        }
+    }
+
+    HttpApiServer getApiServer() {
+        return apiServer;
+    }
+
+    @Override
+    public BridgeMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public DiscordSrvIntegration getDiscordSrv() {
+        return discordSrv;
+    }
+
+    @Override
+    public VotePluginIntegration getVotePlugin() {
+        return votePlugin;
+    }
+
+    @Override
+    public PlaceholderApiIntegration getPlaceholderApi() {
+        return placeholderApi;
+    }
+
+    @Override
+    public LeaderboardManager getLeaderboards() {
+        return leaderboards;
+    }
+}
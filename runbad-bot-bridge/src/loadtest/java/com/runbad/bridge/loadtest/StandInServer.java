@@ -0,0 +1,243 @@
+package com.runbad.bridge.loadtest;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Just enough of a Bukkit server for the bridge to run on: a server thread that
+ * runs sync tasks every 50ms tick, an async task pool, every plugin reported as
+ * enabled, and offline players named after {@link Keys}.
+ *
+ * Built from dynamic proxies so it doesn't depend on the exact Server interface of
+ * the Paper version. Anything not listed here returns null, 0 or false.
+ */
+public final class StandInServer {
+
+    private static final long TICK_MS = 50;
+
+    private final Logger logger = Logger.getLogger("LoadTest");
+    private final AtomicInteger taskIds = new AtomicInteger();
+    private final ScheduledExecutorService serverThread;
+    private final ScheduledExecutorService asyncPool;
+    private volatile Thread mainThread;
+
+    private final Server server;
+    private final PluginManager pluginManager;
+    private final BukkitScheduler scheduler;
+
+    public StandInServer() {
+        serverThread = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Server thread");
+            thread.setDaemon(true);
+            mainThread = thread;
+            return thread;
+        });
+        AtomicInteger asyncThreads = new AtomicInteger();
+        asyncPool = Executors.newScheduledThreadPool(4, r -> {
+            Thread thread = new Thread(r, "Async task " + asyncThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        serverThread.execute(() -> { }); // start the server thread so isPrimaryThread can tell
+
+        server = proxy(Server.class, this::onServer);
+        pluginManager = proxy(PluginManager.class, this::onPluginManager);
+        scheduler = proxy(BukkitScheduler.class, this::onScheduler);
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Keep the server thread busy for the given time every tick, standing in for
+     * the game's own work. Main-thread placeholder evaluation then only gets what
+     * is left of each tick, as on a loaded server.
+     */
+    public void simulateTickLoad(double ms) {
+        if (ms <= 0) {
+            return;
+        }
+        long nanos = (long) (ms * 1_000_000);
+        serverThread.scheduleAtFixedRate(() -> {
+            long end = System.nanoTime() + nanos;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        }, 0, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        serverThread.shutdownNow();
+        asyncPool.shutdownNow();
+    }
+
+    private Object onServer(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getLogger":
+                return logger;
+            case "getPluginManager":
+                return pluginManager;
+            case "getScheduler":
+                return scheduler;
+            case "isPrimaryThread":
+                return Thread.currentThread() == mainThread;
+            case "getOfflinePlayer":
+                return args[0] instanceof UUID ? offlinePlayer((UUID) args[0]) : null;
+            case "getOnlinePlayers":
+                return Collections.emptyList();
+            case "getOfflinePlayers":
+                return new OfflinePlayer[0];
+            case "getName":
+                return "LoadTest";
+            case "getVersion":
+                return "load-test stand-in";
+            case "getBukkitVersion":
+            case "getMinecraftVersion":
+                return "1.20.4";
+            default:
+                return null;
+        }
+    }
+
+    private Object onPluginManager(Method method, Object[] args) {
+        // DiscordSRV, VotingPlugin and PlaceholderAPI are all "installed"
+        return method.getName().equals("isPluginEnabled") ? Boolean.TRUE : null;
+    }
+
+    private Object onScheduler(Method method, Object[] args) {
+        String name = method.getName();
+        if (!name.startsWith("runTask") || args.length < 2 || !(args[1] instanceof Runnable)) {
+            return null;
+        }
+        Runnable task = (Runnable) args[1];
+        ScheduledExecutorService executor = name.endsWith("Asynchronously") ? asyncPool : serverThread;
+        long delayMs = args.length > 2 ? Math.max(0, (Long) args[2]) * TICK_MS : 0;
+        ScheduledFuture<?> future;
+        if (args.length > 3) {
+            long periodMs = Math.max(1, (Long) args[3]) * TICK_MS;
+            future = executor.scheduleAtFixedRate(guard(task), delayMs, periodMs, TimeUnit.MILLISECONDS);
+        } else {
+            future = executor.schedule(guard(task), delayMs, TimeUnit.MILLISECONDS);
+        }
+        return task(future);
+    }
+
+    /**
+     * A throwing task must not cancel its timer, as on a real scheduler.
+     */
+    private Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                logger.warning("Task threw " + e);
+            }
+        };
+    }
+
+    private BukkitTask task(ScheduledFuture<?> future) {
+        int id = taskIds.incrementAndGet();
+        return proxy(BukkitTask.class, (method, args) -> {
+            switch (method.getName()) {
+                case "cancel":
+                    future.cancel(false);
+                    return null;
+                case "isCancelled":
+                    return future.isCancelled();
+                case "getTaskId":
+                    return id;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private OfflinePlayer offlinePlayer(UUID uuid) {
+        long n = Keys.fromUuid(uuid);
+        String name = n >= 0 ? Keys.name(n) : null;
+        return proxy(OfflinePlayer.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                    return name;
+                case "hasPlayedBefore":
+                    return n >= 0;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocation = (proxy, method, args) -> {
+            Object[] actual = args != null ? args : new Object[0];
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == actual[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + " (load-test stand-in)";
+                default:
+                    break;
+            }
+            Object result = handler.handle(method, actual);
+            return result != null ? result : zero(method.getReturnType());
+        };
+        return type.cast(Proxy.newProxyInstance(StandInServer.class.getClassLoader(), new Class<?>[] {type}, invocation));
+    }
+
+    private static Object zero(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
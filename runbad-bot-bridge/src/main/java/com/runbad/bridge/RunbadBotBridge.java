@@ -1,13 +1,35 @@
 package com.runbad.bridge;
 
+import com.runbad.bridge.api.AccessLog;
 import com.runbad.bridge.api.HttpApiServer;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.cache.BoundedCache;
+import com.runbad.bridge.cache.SingleFlight;
+import com.runbad.bridge.events.EventHub;
+import com.runbad.bridge.integrations.CacheWarmer;
 import com.runbad.bridge.integrations.DiscordSrvIntegration;
+import com.runbad.bridge.integrations.JoinPrefetcher;
+import com.runbad.bridge.integrations.LinkIndex;
 import com.runbad.bridge.integrations.PlaceholderApiIntegration;
+import com.runbad.bridge.integrations.TickBatchScheduler;
 import com.runbad.bridge.integrations.VotePluginIntegration;
+import com.runbad.bridge.leaderboard.Leaderboard;
+import com.runbad.bridge.leaderboard.LeaderboardManager;
+import com.runbad.bridge.listeners.DiscordSrvLinkListener;
+import com.runbad.bridge.listeners.LeaderboardListener;
+import com.runbad.bridge.listeners.PrefetchListener;
+import com.runbad.bridge.listeners.VoteListener;
+import com.runbad.bridge.metrics.BridgeMetrics;
+import github.scarsz.discordsrv.DiscordSRV;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 
 public class RunbadBotBridge extends JavaPlugin {
@@ -16,17 +38,37 @@ public class RunbadBotBridge extends JavaPlugin {
     private DiscordSrvIntegration discordSrv;
     private VotePluginIntegration votePlugin;
     private PlaceholderApiIntegration placeholderApi;
+    private DiscordSrvLinkListener linkListener;
+    private EventHub eventHub;
+    private LeaderboardManager leaderboards;
+    private CacheWarmer cacheWarmer;
+    private JoinPrefetcher joinPrefetcher;
+    private final BridgeMetrics metrics = new BridgeMetrics();
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
 
+        // Push channel for vote/link events (/v1/events)
+        if (getConfig().getBoolean("events.enabled", true)) {
+            eventHub = new EventHub(
+                getConfig().getInt("events.history-size", 1024),
+                getConfig().getInt("events.subscriber-buffer", 256),
+                getConfig().getInt("events.max-subscribers", 8)
+            );
+        }
+
         // Initialize integrations
         discordSrv = new DiscordSrvIntegration(this);
         votePlugin = new VotePluginIntegration(this);
         placeholderApi = new PlaceholderApiIntegration(this);
+        leaderboards = new LeaderboardManager(this);
+        cacheWarmer = new CacheWarmer(this);
+        joinPrefetcher = new JoinPrefetcher(this);
+        registerMetrics();
 
-        // Start HTTP API server
+        // Start HTTP API server first; everything slow from here on runs in the background
+        // while /health reports "warming"
         try {
             String host = getConfig().getString("api.host", "127.0.0.1");
             int port = getConfig().getInt("api.port", 9585);
@@ -42,13 +84,54 @@ public class RunbadBotBridge extends JavaPlugin {
             apiServer = new HttpApiServer(this, host, port, token);
             apiServer.start();
 
-            getLogger().info("RunbadBotBridge API started on " + host + ":" + port);
+            getLogger().info("RunbadBotBridge API started (" + apiServer.getTransportDescription() + ")");
         } catch (Exception e) {
             getLogger().log(Level.SEVERE, "Failed to start HTTP API server", e);
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
 
+        // Mirror DiscordSRV's links locally (/v1/link/resolve, /v1/link/reverse)
+        discordSrv.startLinkIndex();
+
+        // Keep caches current from link and vote events
+        if (discordSrv.isAvailable()) {
+            linkListener = new DiscordSrvLinkListener(this);
+            DiscordSRV.api.subscribe(linkListener);
+        }
+        if (votePlugin.isAvailable()) {
+            getServer().getPluginManager().registerEvents(new VoteListener(this), this);
+            // Track when cooldowns end (/v1/vote/ready, vote.ready), starting with linked players
+            boolean seedLinked = getConfig().getBoolean("vote-ready.seed-linked", true);
+            votePlugin.startReadyTracking(() -> seedLinked ? discordSrv.getLinkedUuids() : Collections.<UUID>emptyList());
+        }
+
+        // Load saved boards, then sample leaderboard placeholders in the background (/v1/leaderboard)
+        if (!leaderboards.getBoards().isEmpty()) {
+            leaderboards.start();
+            getServer().getPluginManager().registerEvents(new LeaderboardListener(this), this);
+        }
+
+        // Refill the link and vote caches for online players and recent requesters
+        List<UUID> online = new ArrayList<>();
+        for (Player player : getServer().getOnlinePlayers()) {
+            online.add(player.getUniqueId());
+        }
+        cacheWarmer.start(online);
+
+        // Load joining players' data before they ask for it from Discord
+        if (joinPrefetcher.isEnabled()) {
+            getServer().getPluginManager().registerEvents(new PrefetchListener(this), this);
+        }
+
+        // Periodically drop expired cache entries that are never read again
+        long sweepTicks = Math.max(1, getConfig().getLong("cache.sweep-interval", 60)) * 20L;
+        getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+            discordSrv.getCache().sweep();
+            votePlugin.getCache().sweep();
+            placeholderApi.getCache().sweep();
+        }, sweepTicks, sweepTicks);
+
         getLogger().info("RunbadBotBridge v" + getDescription().getVersion() + " enabled!");
         getLogger().info("Integrations: DiscordSRV=" + discordSrv.isAvailable()
                 + " VotingPlugin=" + votePlugin.isAvailable()
@@ -57,10 +140,35 @@ public class RunbadBotBridge extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (linkListener != null) {
+            DiscordSRV.api.unsubscribe(linkListener);
+            linkListener = null;
+        }
+        if (eventHub != null) {
+            eventHub.close(); // ends open streams so the server can stop promptly
+        }
         if (apiServer != null) {
             apiServer.stop();
             getLogger().info("HTTP API server stopped.");
         }
+        if (leaderboards != null) {
+            leaderboards.stop();
+        }
+        if (votePlugin != null) {
+            votePlugin.stopReadyTracking();
+        }
+        if (joinPrefetcher != null) {
+            joinPrefetcher.shutdown();
+        }
+        if (cacheWarmer != null) {
+            cacheWarmer.stop(); // saves recent requesters for the next warm-up
+        }
+        if (discordSrv != null) {
+            discordSrv.stopLinkIndex();
+        }
+        if (placeholderApi != null) {
+            placeholderApi.shutdown();
+        }
         getLogger().info("RunbadBotBridge disabled.");
     }
 
@@ -69,15 +177,169 @@ public class RunbadBotBridge extends JavaPlugin {
         if ("bridgestatus".equalsIgnoreCase(command.getName())) {
             sender.sendMessage("§6[RunbadBotBridge] §fStatus:");
             sender.sendMessage("§7  API Server: §a" + (apiServer != null && apiServer.isRunning() ? "Running" : "Stopped"));
-            sender.sendMessage("§7  Bind: §f" + getConfig().getString("api.host") + ":" + getConfig().getInt("api.port"));
+            if (apiServer != null) {
+                sender.sendMessage("§7  Transport: §f" + apiServer.getTransportDescription());
+                sender.sendMessage("§7  Executor: §f" + apiServer.getExecutorDescription());
+                AccessLog accessLog = apiServer.getAccessLog();
+                if (accessLog != null) {
+                    sender.sendMessage("§7  Access log: §f" + accessLog.getWritten() + " written, "
+                            + accessLog.getSampledOut() + " sampled out, " + accessLog.getDropped() + " dropped");
+                }
+            }
             sender.sendMessage("§7  DiscordSRV: " + (discordSrv.isAvailable() ? "§aAvailable" : "§cUnavailable"));
             sender.sendMessage("§7  VotingPlugin: " + (votePlugin.isAvailable() ? "§aAvailable" : "§cUnavailable"));
             sender.sendMessage("§7  PlaceholderAPI: " + (placeholderApi.isAvailable() ? "§aAvailable" : "§cUnavailable"));
+            if (isWarming()) {
+                sender.sendMessage("§7  Warm-up: §e" + cacheWarmer.getDone() + "/" + cacheWarmer.getTotal() + " lookups"
+                        + (leaderboards.isLoading() ? ", loading leaderboards" : ""));
+            }
+            sendMetricsSummary(sender);
+            sendCacheStats(sender, "Link", discordSrv.getCache(), discordSrv.getLookups());
+            LinkIndex linkIndex = discordSrv.getLinkIndex();
+            if (linkIndex != null) {
+                sender.sendMessage("§7  Link index: §f" + (linkIndex.isReady() ? "ready" : "§esyncing§f") + ", "
+                        + linkIndex.size() + " links, " + (linkIndex.getFileBytes() / 1024) + " KiB mapped, "
+                        + linkIndex.getFiltered() + "/" + (linkIndex.getFiltered() + linkIndex.getProbed())
+                        + " lookups filtered"
+                        + (linkIndex.getSyncedAt() > 0
+                            ? ", synced " + (System.currentTimeMillis() - linkIndex.getSyncedAt()) / 1000 + "s ago" : ""));
+            }
+            sendCacheStats(sender, "Vote", votePlugin.getCache(), votePlugin.getLookups());
+            sendCacheStats(sender, "Placeholder", placeholderApi.getCache(), placeholderApi.getEvaluations());
+            if (joinPrefetcher.isEnabled()) {
+                sender.sendMessage("§7  Join prefetch: §f" + joinPrefetcher.getPrefetched() + " players loaded, "
+                        + joinPrefetcher.getFresh() + " already cached, " + joinPrefetcher.getDropped() + " dropped");
+            }
+            if (votePlugin.isAvailable()) {
+                sender.sendMessage("§7  Vote readiness: §f" + votePlugin.getReadyIndex().getPending() + " cooldowns pending");
+            }
+            if (!leaderboards.getBoards().isEmpty()) {
+                int ranked = 0;
+                for (Leaderboard board : leaderboards.getBoards()) {
+                    ranked += board.size();
+                }
+                sender.sendMessage("§7  Leaderboards: §f" + leaderboards.getBoards().size() + " boards, "
+                        + ranked + " entries, " + leaderboards.getSamples() + " samples, "
+                        + leaderboards.getPending() + " pending");
+            }
+            if (eventHub != null) {
+                sender.sendMessage("§7  Events: §f" + eventHub.getSubscriberCount() + " subscribers, "
+                        + eventHub.getPublished() + " published, " + eventHub.getOverflows() + " dropped for overflow");
+            }
             return true;
         }
         return false;
     }
 
+    private void registerMetrics() {
+        metrics.registerCache("link", discordSrv.getCache(), discordSrv.getLookups());
+        metrics.registerCache("vote", votePlugin.getCache(), votePlugin.getLookups());
+        metrics.registerCache("placeholder", placeholderApi.getCache(), placeholderApi.getEvaluations());
+        if (placeholderApi.getScheduler() != null) {
+            TickBatchScheduler scheduler = placeholderApi.getScheduler();
+            metrics.registerGauge("main_thread_queue_depth", "Placeholder evaluations waiting for a server tick.",
+                    scheduler::getPending);
+        }
+        metrics.registerGauge("link_index_links", "Links in the local link index (-1 when disabled).", () -> {
+            LinkIndex linkIndex = discordSrv.getLinkIndex();
+            return linkIndex != null ? linkIndex.size() : -1;
+        });
+        metrics.registerExecutor("prefetch", joinPrefetcher.getExecutor());
+        metrics.registerGauge("vote_ready_pending", "Vote cooldowns being tracked until they end.",
+                () -> votePlugin.getReadyIndex().getPending());
+        if (eventHub != null) {
+            metrics.registerGauge("event_subscribers", "Open /v1/events streams.", eventHub::getSubscriberCount);
+        }
+    }
+
+    private void sendMetricsSummary(CommandSender sender) {
+        List<BridgeMetrics.Summary> endpoints = metrics.endpointSummaries();
+        long requests = 0;
+        for (BridgeMetrics.Summary summary : endpoints) {
+            requests += summary.count;
+        }
+        sender.sendMessage("§7  Requests: §f" + requests + " total, " + metrics.getInFlight() + " in flight, "
+                + metrics.getRateLimitRejections() + " rate-limited");
+        for (BridgeMetrics.Summary summary : endpoints) {
+            if (summary.count > 0) {
+                sender.sendMessage("§7    " + summary.name + ": §f" + summary.count + " req, p50 "
+                        + formatLatency(summary.p50) + ", p99 " + formatLatency(summary.p99)
+                        + (summary.errors > 0 ? ", §c" + summary.errors + " errors" : ""));
+            }
+        }
+        for (BridgeMetrics.Summary summary : metrics.integrationSummaries()) {
+            if (summary.count > 0) {
+                sender.sendMessage("§7    " + summary.name + ": §f" + summary.count + " calls, p50 "
+                        + formatLatency(summary.p50) + ", p99 " + formatLatency(summary.p99));
+            }
+        }
+        for (String executor : metrics.executorSummaries()) {
+            sender.sendMessage("§7    executor " + executor);
+        }
+    }
+
+    /**
+     * A histogram bucket bound as "<=2.5ms"; bounds are only good to one bucket.
+     */
+    private static String formatLatency(double seconds) {
+        if (Double.isNaN(seconds)) {
+            return "-";
+        }
+        if (Double.isInfinite(seconds)) {
+            return ">10s";
+        }
+        return seconds < 1 ? "<=" + trimZero(seconds * 1000) + "ms" : "<=" + trimZero(seconds) + "s";
+    }
+
+    private static String trimZero(double value) {
+        String s = Double.toString(value);
+        return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+    }
+
+    private void sendCacheStats(CommandSender sender, String name, BoundedCache cache, SingleFlight<?, ?> flights) {
+        sender.sendMessage(String.format("§7  %s cache: §f%d/%d entries, %.1f%% hits (%d/%d), %d evicted, %d expired, %d coalesced",
+                name, cache.size(), cache.getMaxSize(), cache.getHitRatio() * 100, cache.getHits(),
+                cache.getHits() + cache.getMisses(), cache.getEvictions(), cache.getExpirations(),
+                flights.getCoalesced()));
+    }
+
+    /**
+     * True while startup work is still running in the background: loading saved
+     * leaderboards or warming the caches.
+     */
+    public boolean isWarming() {
+        return cacheWarmer != null && cacheWarmer.isWarming() || leaderboards != null && leaderboards.isLoading();
+    }
+
+    public JoinPrefetcher getJoinPrefetcher() {
+        return joinPrefetcher;
+    }
+
+    public CacheWarmer getCacheWarmer() {
+        return cacheWarmer;
+    }
+
+    /**
+     * Publish to /v1/events subscribers; a no-op when events are disabled.
+     */
+    public void publishEvent(String type, JsonResponseWriter.Body data) {
+        if (eventHub != null) {
+            eventHub.publish(type, data);
+        }
+    }
+
+    public EventHub getEventHub() {
+        return eventHub;
+    }
+
+    public BridgeMetrics getMetrics() {
+        return metrics;
+    }
+
+    public LeaderboardManager getLeaderboards() {
+        return leaderboards;
+    }
+
     public DiscordSrvIntegration getDiscordSrv() {
         return discordSrv;
     }
@@ -0,0 +1,383 @@
+package com.runbad.bridge.api;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.cache.CacheOutcome;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Request log written to a file by a background thread, so logging never blocks or
+ * slows a request.
+ *
+ * Requests go into a fixed ring buffer without locks: a producer claims a slot by
+ * bumping the tail, fills it and publishes it through the slot's sequence number.
+ * When the buffer is full the entry is dropped and counted. The writer drains it in
+ * batches, formats one key=value line per request and flushes every
+ * flush-interval-ms. The file rotates by size and by how long it has been written
+ * to, keeping max-files old ones.
+ *
+ * Successful requests can be sampled (logging.access-log.sample-rate); errors are
+ * always logged.
+ *
+ * If the file can't be written, entries are counted as dropped and it is reopened
+ * every 30 seconds; if it can't be rotated, it keeps growing and rotation is retried
+ * as often. Each problem is logged once, and again when it clears.
+ */
+public class AccessLog {
+
+    private static final int BATCH = 256;
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final String[] CACHE = {"-", "hit", "miss"};
+
+    private final RunbadBotBridge plugin;
+    private final Path file;
+    private final double sampleRate;
+    private final long flushIntervalNanos;
+    private final long maxBytes;
+    private final long rotateMs;
+    private final int maxFiles;
+
+    // Ring buffer: slot i holds position p when sequences[i] == p + 1, and is free
+    // for position p when sequences[i] == p
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] times;
+    private final long[] nanos;
+    private final int[] statuses;
+    private final byte[] caches;
+    private final String[] methods;
+    private final String[] endpoints;
+    private final URI[] uris;
+    private final InetSocketAddress[] remotes;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // writer thread only
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Writer thread only
+    private BufferedWriter out; // null while the file can't be written
+    private long bytes;
+    private long openedAt;
+    private int unflushed; // entries written to out since the last flush
+    private long retryAt; // no reopen or rotation before this (System.nanoTime())
+    private boolean writeFailing;
+    private boolean rotateFailing;
+
+    public AccessLog(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+        Path path = Path.of(plugin.getConfig().getString("logging.access-log.file", "logs/access.log"));
+        this.file = path.isAbsolute() ? path : plugin.getDataFolder().toPath().resolve(path);
+        this.sampleRate = Math.min(1.0, Math.max(0.0, plugin.getConfig().getDouble("logging.access-log.sample-rate", 1.0)));
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(10, plugin.getConfig().getLong("logging.access-log.flush-interval-ms", 1000)));
+        this.maxBytes = Math.max(1, plugin.getConfig().getLong("logging.access-log.max-size-mb", 10)) * 1024 * 1024;
+        this.rotateMs = TimeUnit.HOURS.toMillis(Math.max(0, plugin.getConfig().getLong("logging.access-log.rotate-hours", 24)));
+        this.maxFiles = Math.max(0, plugin.getConfig().getInt("logging.access-log.max-files", 5));
+
+        int capacity = Integer.highestOneBit(Math.max(64, plugin.getConfig().getInt("logging.access-log.buffer-size", 8192)) * 2 - 1);
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.times = new long[capacity];
+        this.nanos = new long[capacity];
+        this.statuses = new int[capacity];
+        this.caches = new byte[capacity];
+        this.methods = new String[capacity];
+        this.endpoints = new String[capacity];
+        this.uris = new URI[capacity];
+        this.remotes = new InetSocketAddress[capacity];
+    }
+
+    public void start() throws IOException {
+        Files.createDirectories(file.getParent());
+        open();
+        running = true;
+        CacheOutcome.setEnabled(true);
+        writerThread = new Thread(this::run, "RunbadBridge-AccessLog");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop the writer after it has written everything already queued.
+     */
+    public void stop() {
+        running = false;
+        CacheOutcome.setEnabled(false);
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+        }
+    }
+
+    /**
+     * Wrap a handler so each request served at endpoint is logged.
+     */
+    public HttpHandler wrap(String endpoint, HttpHandler handler) {
+        return exchange -> {
+            long start = System.nanoTime();
+            CacheOutcome.begin();
+            try {
+                handler.handle(exchange);
+            } finally {
+                int cache = CacheOutcome.end();
+                int status = exchange.getResponseCode();
+                record(endpoint, exchange.getRequestMethod(), exchange.getRequestURI(), exchange.getRemoteAddress(),
+                        status == -1 ? 500 : status, System.nanoTime() - start, cache);
+            }
+        };
+    }
+
+    /**
+     * Entries lost because the buffer was full or the file couldn't be written.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Successful requests skipped by sampling.
+     */
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private void record(String endpoint, String method, URI uri, InetSocketAddress remote, int status,
+                        long elapsedNanos, int cache) {
+        if (!running) {
+            return;
+        }
+        if (status < 400 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return;
+        }
+
+        // Claim a slot
+        long position = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                dropped.increment(); // the writer hasn't freed this slot yet: full
+                return;
+            } else {
+                position = tail.get(); // another producer took it
+            }
+        }
+
+        times[slot] = System.currentTimeMillis();
+        nanos[slot] = elapsedNanos;
+        statuses[slot] = status;
+        caches[slot] = (byte) cache;
+        methods[slot] = method;
+        endpoints[slot] = endpoint;
+        uris[slot] = uri;
+        remotes[slot] = remote;
+        sequences.set(slot, position + 1); // publish
+    }
+
+    private void run() {
+        StringBuilder line = new StringBuilder(160);
+        long lastFlush = System.nanoTime();
+        while (true) {
+            boolean stopping = !running;
+            int drained = 0;
+            try {
+                if (out == null && System.nanoTime() - retryAt >= 0) {
+                    reopen();
+                }
+                while (drained < BATCH && poll(line)) {
+                    drained++;
+                    if (out == null) {
+                        dropped.increment(); // can't write until the file reopens
+                        continue;
+                    }
+                    out.append(line);
+                    bytes += line.length() + 1;
+                    unflushed++;
+                }
+                long now = System.nanoTime();
+                if (unflushed > 0 && (drained == 0 || now - lastFlush >= flushIntervalNanos)) {
+                    out.flush();
+                    written.addAndGet(unflushed);
+                    unflushed = 0;
+                    lastFlush = now;
+                }
+                if (out != null && now - retryAt >= 0 && (bytes >= maxBytes
+                        || bytes > 0 && rotateMs > 0 && System.currentTimeMillis() - openedAt >= rotateMs)) {
+                    rotate();
+                }
+            } catch (IOException | RuntimeException e) {
+                writeFailed(e);
+            }
+
+            if (stopping && drained == 0) {
+                break;
+            }
+            if (drained == 0) {
+                // Let the next batch build up
+                LockSupport.parkNanos(Math.min(flushIntervalNanos, TimeUnit.MILLISECONDS.toNanos(50)));
+            }
+        }
+        if (out != null) {
+            try {
+                out.close();
+                written.addAndGet(unflushed);
+            } catch (IOException e) {
+                dropped.add(unflushed);
+                plugin.getLogger().warning("Access log close failed: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Give up on the open file: what it hadn't flushed is dropped, and it is
+     * reopened after RETRY_NANOS.
+     */
+    private void writeFailed(Exception e) {
+        dropped.add(unflushed);
+        unflushed = 0;
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Already failing
+            }
+            out = null;
+        }
+        retryAt = System.nanoTime() + RETRY_NANOS;
+        if (!writeFailing) {
+            writeFailing = true;
+            plugin.getLogger().warning("Access log write failed, dropping entries and retrying every 30s: "
+                    + e.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void reopen() throws IOException {
+        open();
+        if (writeFailing) {
+            writeFailing = false;
+            plugin.getLogger().info("Access log writing to " + file + " again.");
+        }
+    }
+
+    /**
+     * Format the oldest entry into line (ending in a newline); false if the buffer is empty.
+     */
+    private boolean poll(StringBuilder line) {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return false;
+        }
+        InetSocketAddress remote = remotes[slot];
+        line.setLength(0);
+        line.append("ts=").append(Instant.ofEpochMilli(times[slot]))
+            .append(" method=").append(methods[slot])
+            .append(" endpoint=").append(endpoints[slot])
+            .append(" path=").append(uris[slot].getRawPath())
+            .append(" status=").append(statuses[slot])
+            .append(" ms=").append(nanos[slot] / 1000 / 1000.0)
+            .append(" cache=").append(CACHE[caches[slot]])
+            .append(" ip=").append(remote == null ? "-"
+                    : remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString())
+            .append('\n');
+        methods[slot] = null;
+        endpoints[slot] = null;
+        uris[slot] = null;
+        remotes[slot] = null;
+        sequences.set(slot, head + mask + 1); // free for the next lap
+        head++;
+        return true;
+    }
+
+    private void open() throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        bytes = Files.size(file);
+        openedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * access.log becomes access.log.1, .1 becomes .2 and so on; the oldest beyond
+     * max-files is deleted. If that fails, keep appending to access.log.
+     */
+    private void rotate() throws IOException {
+        out.close();
+        written.addAndGet(unflushed);
+        unflushed = 0;
+        out = null;
+        try {
+            if (maxFiles == 0) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.deleteIfExists(rotated(maxFiles));
+                for (int i = maxFiles - 1; i >= 1; i--) {
+                    if (Files.exists(rotated(i))) {
+                        Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (rotateFailing) {
+                rotateFailing = false;
+                plugin.getLogger().info("Access log rotation working again.");
+            }
+        } catch (IOException e) {
+            retryAt = System.nanoTime() + RETRY_NANOS;
+            if (!rotateFailing) {
+                rotateFailing = true;
+                plugin.getLogger().warning("Access log rotation failed, appending to " + file
+                        + " and retrying every 30s: " + e.getMessage());
+            }
+        }
+        open();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -8,8 +8,6 @@ import com.sun.net.httpserver.HttpHandler;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * Base handler with auth, rate limiting, and JSON helpers.
@@ -21,13 +19,13 @@ public abstract class BaseHandler implements HttpHandler {
     protected final RunbadBotBridge plugin;
     protected final String expectedToken;
     protected final RateLimiter rateLimiter;
-    protected final boolean logRequests;
+    private final char[] expectedAuthorization;
 
-    public BaseHandler(RunbadBotBridge plugin, String expectedToken, RateLimiter rateLimiter, boolean logRequests) {
+    public BaseHandler(RunbadBotBridge plugin, String expectedToken, RateLimiter rateLimiter) {
         this.plugin = plugin;
         this.expectedToken = expectedToken;
         this.rateLimiter = rateLimiter;
-        this.logRequests = logRequests;
+        this.expectedAuthorization = RequestParser.bearer(expectedToken);
     }
 
     @Override
@@ -36,10 +34,6 @@ public abstract class BaseHandler implements HttpHandler {
         String method = exchange.getRequestMethod();
         String path = exchange.getRequestURI().getPath();
 
-        if (logRequests) {
-            plugin.getLogger().info("[API] " + method + " " + path + " from " + ip);
-        }
-
         // Rate limit check
         if (!rateLimiter.tryAcquire(ip)) {
             sendError(exchange, 429, "Rate limit exceeded");
@@ -48,7 +42,7 @@ public abstract class BaseHandler implements HttpHandler {
 
         // Auth check
         String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
-        if (authHeader == null || !authHeader.equals("Bearer " + expectedToken)) {
+        if (!RequestParser.constantTimeEquals(authHeader, expectedAuthorization)) {
             sendError(exchange, 401, "Unauthorized");
             return;
         }
@@ -62,9 +56,17 @@ public abstract class BaseHandler implements HttpHandler {
 
         try {
             handleAuthenticated(exchange);
-        } catch (IllegalArgumentException e) {
-            sendError(exchange, 400, e.getMessage());
         } catch (Throwable e) {
+            if (exchange.getResponseCode() != -1) {
+                // Headers already sent mid-stream: throwing makes the server drop the
+                // connection, so the client sees a broken body instead of a short 200
+                plugin.getLogger().warning("[API] Aborted response to " + path + ": " + e.getClass().getName() + ": " + e.getMessage());
+                throw e instanceof IOException ? (IOException) e : new IOException("Response aborted", e);
+            }
+            if (e instanceof IllegalArgumentException) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
             plugin.getLogger().warning("[API] Error handling " + path + ": " + e.getClass().getName() + ": " + e.getMessage());
             sendError(exchange, 500, "Internal server error");
         }
@@ -77,15 +79,7 @@ public abstract class BaseHandler implements HttpHandler {
     }
 
     protected String getQueryParam(HttpExchange exchange, String key) {
-        String query = exchange.getRequestURI().getQuery();
-        if (query == null) return null;
-        for (String param : query.split("&")) {
-            String[] kv = param.split("=", 2);
-            if (kv.length == 2 && kv[0].equals(key)) {
-                return kv[1];
-            }
-        }
-        return null;
+        return RequestParser.queryParam(exchange.getRequestURI().getQuery(), key);
     }
 
     protected String readBody(HttpExchange exchange) throws IOException {
@@ -105,37 +99,65 @@ public abstract class BaseHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Start a streamed JSON response. Closing the writer completes the exchange.
+     */
+    protected JsonResponseWriter openJson(HttpExchange exchange, int statusCode) {
+        return new JsonResponseWriter(exchange, statusCode);
+    }
+
     protected void sendJson(HttpExchange exchange, int statusCode, Object data) throws IOException {
-        String json = GSON.toJson(data);
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        try (JsonResponseWriter out = openJson(exchange, statusCode)) {
+            out.value(data);
+        }
+    }
+
+    /**
+     * Send an already-encoded JSON body, e.g. one kept alongside a cached value.
+     */
+    protected void sendJsonBytes(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
-        exchange.sendResponseHeaders(statusCode, bytes.length);
+        exchange.sendResponseHeaders(statusCode, body.length == 0 ? -1 : body.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(bytes);
+            os.write(body);
+        }
+    }
+
+    /**
+     * Set the ETag header and, if the client already has this version
+     * (If-None-Match), answer 304 with no body. Returns true if the response was sent.
+     */
+    protected boolean sendNotModifiedIfMatch(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (!ETags.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            return false;
         }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
     }
 
     protected void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
-        Map<String, Object> error = new LinkedHashMap<>();
-        error.put("error", true);
-        error.put("status", statusCode);
-        error.put("message", message);
-        sendJson(exchange, statusCode, error);
+        try (JsonResponseWriter out = openJson(exchange, statusCode)) {
+            out.beginObject()
+                .name("error").value(true)
+                .name("status").value(statusCode)
+                .name("message").value(message)
+                .endObject();
+        }
     }
 
     /**
      * Validate a UUID string format.
      */
     protected boolean isValidUuid(String uuid) {
-        if (uuid == null) return false;
-        return uuid.matches("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+        return RequestParser.isUuid(uuid);
     }
 
     /**
      * Validate a Discord snowflake ID format.
      */
     protected boolean isValidDiscordId(String id) {
-        if (id == null) return false;
-        return id.matches("^\\d{17,20}$");
+        return RequestParser.parseSnowflake(id) >= 0;
     }
 }
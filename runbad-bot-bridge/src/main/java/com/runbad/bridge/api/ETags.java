@@ -0,0 +1,87 @@
+package com.runbad.bridge.api;
+
+/**
+ * ETag helpers. Tags are 64-bit FNV-1a hashes rendered as hex.
+ */
+public final class ETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {
+    }
+
+    /**
+     * Strong ETag over exact response bytes.
+     */
+    public static String strong(byte[] body) {
+        long h = FNV_OFFSET;
+        for (byte b : body) {
+            h = (h ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return "\"" + Long.toHexString(h) + "\"";
+    }
+
+    /**
+     * Weak ETag for responses that are semantically equal but not byte-identical.
+     */
+    public static String weak(Hasher hasher) {
+        return "W/\"" + Long.toHexString(hasher.h) + "\"";
+    }
+
+    /**
+     * True if an If-None-Match header value matches the tag (weak comparison).
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        int start = 0;
+        while (start < ifNoneMatch.length()) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = ifNoneMatch.length();
+            }
+            String candidate = ifNoneMatch.substring(start, end).trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * Incremental FNV-1a over the fields that define a response.
+     */
+    public static final class Hasher {
+        private long h = FNV_OFFSET;
+
+        public Hasher add(long value) {
+            for (int i = 0; i < 8; i++) {
+                h = (h ^ (value & 0xff)) * FNV_PRIME;
+                value >>>= 8;
+            }
+            return this;
+        }
+
+        public Hasher add(boolean value) {
+            return add(value ? 1L : 0L);
+        }
+
+        public Hasher add(String value) {
+            if (value == null) {
+                return add(-1L);
+            }
+            for (int i = 0, n = value.length(); i < n; i++) {
+                h = (h ^ value.charAt(i)) * FNV_PRIME;
+            }
+            return add((long) value.length());
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.runbad.bridge.api;
 
 import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.handlers.EventStreamHandler;
 import com.runbad.bridge.handlers.HealthHandler;
+import com.runbad.bridge.handlers.LeaderboardHandler;
+import com.runbad.bridge.handlers.LinkResolveBatchHandler;
 import com.runbad.bridge.handlers.LinkResolveHandler;
+import com.runbad.bridge.handlers.LinkReverseHandler;
+import com.runbad.bridge.handlers.MetricsHandler;
 import com.runbad.bridge.handlers.PlaceholderEvalHandler;
+import com.runbad.bridge.handlers.ProfileHandler;
 import com.runbad.bridge.handlers.VoteNextHandler;
-import com.sun.net.httpserver.HttpServer;
+import com.runbad.bridge.handlers.VoteReadyHandler;
+import com.runbad.bridge.metrics.BridgeMetrics;
+import com.sun.net.httpserver.HttpHandler;
+import org.bukkit.configuration.ConfigurationSection;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HttpApiServer {
 
@@ -17,7 +32,12 @@ public class HttpApiServer {
     private final String host;
     private final int port;
     private final String token;
-    private HttpServer server;
+    private HttpTransport server;
+    private ExecutorService executor;
+    private ExecutorService lookupExecutor;
+    private String executorDescription;
+    private int executorThreads; // 0 for virtual threads
+    private AccessLog accessLog;
     private boolean running = false;
 
     public HttpApiServer(RunbadBotBridge plugin, String host, int port, String token) {
@@ -28,28 +48,69 @@ public class HttpApiServer {
     }
 
     public void start() throws IOException {
-        InetSocketAddress address = new InetSocketAddress(host, port);
-        server = HttpServer.create(address, 0);
+        // Handlers block on DiscordSRV / VotingPlugin lookups, so the worker model is configurable
+        executor = createExecutor();
+        server = createTransport();
 
-        // Use a small thread pool - this is localhost-only, low traffic
-        server.setExecutor(Executors.newFixedThreadPool(4));
+        // Fan-out lookups get their own executor so a saturated request pool can't deadlock them
+        lookupExecutor = createLookupExecutor();
 
-        // Rate limiter shared across all endpoints
+        // Rate limiter shared across endpoints without their own limits
         RateLimiter rateLimiter = new RateLimiter(
             plugin.getConfig().getInt("rate-limit.max-per-minute", 60),
             plugin.getConfig().getInt("rate-limit.max-per-second", 10)
         );
 
-        boolean logRequests = plugin.getConfig().getBoolean("logging.log-requests", true);
+        if (plugin.getConfig().getBoolean("logging.log-requests", true)) {
+            accessLog = new AccessLog(plugin);
+            try {
+                accessLog.start();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not open access log " + accessLog.getFile() + ": " + e.getMessage());
+                accessLog = null;
+            }
+        }
+
+        BridgeMetrics metrics = plugin.getMetrics();
+        metrics.registerRateLimiter("shared", rateLimiter);
+        metrics.registerExecutor("http", executor);
+        metrics.registerExecutor("lookup", lookupExecutor);
+        if (accessLog != null) {
+            metrics.registerGauge("access_log_dropped", "Access log entries dropped because the buffer was full.",
+                    accessLog::getDropped);
+        }
 
         // Register endpoints
-        server.createContext("/health", new HealthHandler(plugin));
-        server.createContext("/v1/link/resolve", new LinkResolveHandler(plugin, token, rateLimiter, logRequests));
-        server.createContext("/v1/vote/next", new VoteNextHandler(plugin, token, rateLimiter, logRequests));
-        server.createContext("/v1/placeholders/eval", new PlaceholderEvalHandler(plugin, token, rateLimiter, logRequests));
+        register("/health", new HealthHandler(plugin));
+        register("/v1/link/resolve", new LinkResolveHandler(plugin, token,
+                rateLimiterFor("/v1/link/resolve", rateLimiter)));
+        register("/v1/link/resolve-batch", new LinkResolveBatchHandler(plugin, token,
+                rateLimiterFor("/v1/link/resolve-batch", rateLimiter)));
+        register("/v1/link/reverse", new LinkReverseHandler(plugin, token,
+                rateLimiterFor("/v1/link/reverse", rateLimiter)));
+        register("/v1/vote/next", new VoteNextHandler(plugin, token,
+                rateLimiterFor("/v1/vote/next", rateLimiter)));
+        register("/v1/vote/ready", new VoteReadyHandler(plugin, token,
+                rateLimiterFor("/v1/vote/ready", rateLimiter)));
+        register("/v1/placeholders/eval", new PlaceholderEvalHandler(plugin, token,
+                rateLimiterFor("/v1/placeholders/eval", rateLimiter)));
+        register("/v1/profile", new ProfileHandler(plugin, token,
+                rateLimiterFor("/v1/profile", rateLimiter), lookupExecutor));
+        register("/v1/leaderboard", new LeaderboardHandler(plugin, token,
+                rateLimiterFor("/v1/leaderboard", rateLimiter), plugin.getLeaderboards()));
+        if (plugin.getConfig().getBoolean("metrics.enabled", true)) {
+            register("/metrics", new MetricsHandler(plugin, token,
+                    rateLimiterFor("/metrics", rateLimiter)));
+        }
+        if (plugin.getEventHub() != null) {
+            register("/v1/events", new EventStreamHandler(plugin, token,
+                    rateLimiterFor("/v1/events", rateLimiter), plugin.getEventHub(), maxEventStreams()));
+        }
 
         server.start();
         running = true;
+        plugin.getLogger().info("HTTP API transport: " + server.getDescription());
+        plugin.getLogger().info("HTTP API executor: " + executorDescription);
     }
 
     public void stop() {
@@ -57,9 +118,205 @@ public class HttpApiServer {
             server.stop(2); // 2 second grace period
             running = false;
         }
+        plugin.getMetrics().unregisterExecutors();
+        if (accessLog != null) {
+            accessLog.stop(); // after the server, so in-flight requests are logged
+        }
+        shutdown(executor);
+        shutdown(lookupExecutor);
+        executor = null;
+        lookupExecutor = null;
+    }
+
+    /**
+     * The request log, or null when logging.log-requests is off.
+     */
+    public AccessLog getAccessLog() {
+        return accessLog;
     }
 
     public boolean isRunning() {
         return running;
     }
+
+    public String getExecutorDescription() {
+        return executorDescription;
+    }
+
+    public String getTransportDescription() {
+        return server != null ? server.getDescription() : "none";
+    }
+
+    /**
+     * Build the transport from api.transport:
+     *   jdk - the JDK's built-in HTTP server on host:port
+     *   nio - the bridge's selector engine, on api.unix-socket if set, else host:port
+     */
+    private HttpTransport createTransport() throws IOException {
+        String mode = plugin.getConfig().getString("api.transport", "jdk").toLowerCase();
+        String socketPath = plugin.getConfig().getString("api.unix-socket", "");
+
+        if (socketPath != null && !socketPath.isEmpty()) {
+            if (!mode.equals("nio")) {
+                plugin.getLogger().warning("api.unix-socket needs the nio transport - using nio.");
+            }
+            Path path = Path.of(socketPath);
+            if (!path.isAbsolute()) {
+                path = plugin.getDataFolder().toPath().resolve(path);
+            }
+            return new NioHttpTransport(UnixDomainSocketAddress.of(path), executor, plugin.getLogger());
+        }
+
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        switch (mode) {
+            case "nio":
+                return new NioHttpTransport(address, executor, plugin.getLogger());
+            case "jdk":
+                break;
+            default:
+                plugin.getLogger().warning("Unknown api.transport '" + mode + "' - using jdk.");
+                break;
+        }
+        return new JdkHttpTransport(address, executor);
+    }
+
+    /**
+     * Serve handler at path, timed for /metrics under that path and written to the
+     * access log.
+     */
+    private void register(String path, HttpHandler handler) {
+        HttpHandler instrumented = plugin.getMetrics().instrument(path, handler);
+        server.createContext(path, accessLog != null ? accessLog.wrap(path, instrumented) : instrumented);
+    }
+
+    /**
+     * The endpoint's own limiter if rate-limit.endpoints configures one,
+     * otherwise the shared limiter.
+     */
+    private RateLimiter rateLimiterFor(String path, RateLimiter shared) {
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("rate-limit.endpoints." + path);
+        if (section == null) {
+            return shared;
+        }
+        RateLimiter limiter = new RateLimiter(
+            section.getInt("max-per-minute", plugin.getConfig().getInt("rate-limit.max-per-minute", 60)),
+            section.getInt("max-per-second", plugin.getConfig().getInt("rate-limit.max-per-second", 10))
+        );
+        plugin.getMetrics().registerRateLimiter(path, limiter);
+        return limiter;
+    }
+
+    /**
+     * Build the request executor from api.executor:
+     *   virtual - one virtual thread per request (Java 21+, falls back to pool)
+     *   pool    - fixed platform pool sized by api.executor-threads
+     *   legacy  - the original 4-thread pool
+     */
+    private ExecutorService createExecutor() {
+        String mode = plugin.getConfig().getString("api.executor", "virtual").toLowerCase();
+        int threads = Math.max(1, plugin.getConfig().getInt("api.executor-threads", 16));
+
+        switch (mode) {
+            case "virtual":
+                ExecutorService virtual = newVirtualThreadExecutor();
+                if (virtual != null) {
+                    executorDescription = "virtual (thread per request)";
+                    executorThreads = 0;
+                    return virtual;
+                }
+                plugin.getLogger().warning("Virtual threads require Java 21+ - falling back to a "
+                        + threads + "-thread pool.");
+                break;
+            case "pool":
+                break;
+            case "legacy":
+                threads = 4;
+                break;
+            default:
+                plugin.getLogger().warning("Unknown api.executor '" + mode + "' - using a "
+                        + threads + "-thread pool.");
+                break;
+        }
+
+        executorDescription = "pool (" + threads + " threads)";
+        executorThreads = threads;
+        return Executors.newFixedThreadPool(threads, new WorkerThreadFactory("RunbadBridge-HTTP-"));
+    }
+
+    /**
+     * Open event streams allowed at once. Each holds a request thread for as long as
+     * it is connected, so on a fixed pool they get at most a quarter of the threads
+     * and the other endpoints keep the rest; with virtual threads only
+     * events.max-subscribers applies.
+     */
+    private int maxEventStreams() {
+        int configured = Math.max(1, plugin.getConfig().getInt("events.max-subscribers", 8));
+        if (executorThreads == 0) {
+            return configured;
+        }
+        int limit = Math.max(1, executorThreads / 4);
+        if (configured > limit) {
+            plugin.getLogger().warning("events.max-subscribers " + configured + " lowered to " + limit
+                    + ": each stream holds one of the " + executorThreads + " request threads.");
+            return limit;
+        }
+        return configured;
+    }
+
+    /**
+     * Executor for concurrent integration lookups within a single request.
+     * Unbounded, since its concurrency is already capped by the request executor.
+     */
+    private ExecutorService createLookupExecutor() {
+        ExecutorService virtual = executorDescription.startsWith("virtual") ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            return virtual;
+        }
+        return Executors.newCachedThreadPool(new WorkerThreadFactory("RunbadBridge-Lookup-"));
+    }
+
+    private static void shutdown(ExecutorService service) {
+        if (service == null) {
+            return;
+        }
+        service.shutdown();
+        try {
+            if (!service.awaitTermination(2, TimeUnit.SECONDS)) {
+                service.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            service.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() via reflection, since the plugin
+     * is compiled for Java 17. Returns null when the running JVM lacks it.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        WorkerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package com.runbad.bridge.api;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+
+/**
+ * The HTTP engine under HttpApiServer. Handlers are plain HttpHandlers so every
+ * transport serves the same endpoints.
+ */
+public interface HttpTransport {
+
+    void createContext(String path, HttpHandler handler);
+
+    void start() throws IOException;
+
+    /**
+     * Stop accepting connections and wait up to delaySeconds for in-flight exchanges.
+     */
+    void stop(int delaySeconds);
+
+    /**
+     * Engine and bind address, for logs and /bridgestatus.
+     */
+    String getDescription();
+}
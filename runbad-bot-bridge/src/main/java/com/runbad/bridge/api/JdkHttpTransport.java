@@ -0,0 +1,48 @@
+package com.runbad.bridge.api;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * The JDK's built-in com.sun.net.httpserver server on TCP.
+ *
+ * The server has no per-connection socket options; TCP_NODELAY is only set when the
+ * JVM is started with -Dsun.net.httpserver.nodelay=true. Without it, keep-alive
+ * requests can stall ~40ms on delayed ACKs. The nio transport sets it on each
+ * connection itself.
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    private final InetSocketAddress address;
+    private final HttpServer server;
+
+    public JdkHttpTransport(InetSocketAddress address, Executor executor) throws IOException {
+        this.address = address;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+    }
+
+    @Override
+    public String getDescription() {
+        return "jdk on " + address.getHostString() + ":" + address.getPort();
+    }
+}
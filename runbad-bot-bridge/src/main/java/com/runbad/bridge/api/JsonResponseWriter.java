@@ -0,0 +1,396 @@
+package com.runbad.bridge.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a JSON response as UTF-8 straight into a pooled byte buffer.
+ *
+ * Responses that fit in the buffer are sent with a Content-Length. Once a response
+ * outgrows it, headers are sent with chunked transfer and the buffer becomes a
+ * write-through buffer for the exchange output stream. Bodies of at least
+ * {@link #GZIP_MIN_BYTES} are gzipped when the client's Accept-Encoding allows it,
+ * and carry Vary: Accept-Encoding either way.
+ */
+public final class JsonResponseWriter implements Closeable {
+
+    static final int BUFFER_SIZE = 8192;
+    static final int GZIP_MIN_BYTES = 1024;
+    private static final int MAX_POOLED = 64;
+    private static final int MAX_DEPTH = 32;
+
+    private static final Queue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final boolean gzipAccepted;
+
+    private byte[] buf;
+    private int pos;
+    private OutputStream out; // set once the response is committed to streaming
+
+    // hasValue[depth]: whether the current object/array already holds a value (comma needed)
+    private final boolean[] hasValue = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonResponseWriter(HttpExchange exchange, int statusCode) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.gzipAccepted = RequestParser.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        this.buf = acquire();
+    }
+
+    private JsonResponseWriter(OutputStream target) {
+        this.exchange = null;
+        this.statusCode = 0;
+        this.gzipAccepted = false;
+        this.out = target;
+        this.buf = acquire();
+    }
+
+    /**
+     * Serialize to a byte array instead of a response, e.g. to keep the encoded
+     * form of a cached value.
+     */
+    public static byte[] encode(Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (JsonResponseWriter out = new JsonResponseWriter(bytes)) {
+            body.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    public interface Body {
+        void write(JsonResponseWriter out) throws IOException;
+    }
+
+    // ---- structure ----
+
+    public JsonResponseWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonResponseWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonResponseWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonResponseWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonResponseWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    // ---- values ----
+
+    public JsonResponseWriter value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonResponseWriter value(long value) throws IOException {
+        separator();
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * Whole numbers are written without a fraction; NaN and infinities as null.
+     */
+    public JsonResponseWriter value(double value) throws IOException {
+        if (!Double.isFinite(value)) {
+            return nullValue();
+        }
+        separator();
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            writeLong((long) value);
+        } else {
+            writeAscii(Double.toString(value));
+        }
+        return this;
+    }
+
+    public JsonResponseWriter value(boolean value) throws IOException {
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonResponseWriter nullValue() throws IOException {
+        separator();
+        writeAscii("null");
+        return this;
+    }
+
+    /**
+     * Write maps, collections, strings, numbers and booleans directly; anything
+     * else goes through Gson.
+     */
+    public JsonResponseWriter value(Object value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof String) {
+            return value((String) value);
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(e.getKey()));
+                value(e.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Collection) {
+            beginArray();
+            for (Object item : (Collection<?>) value) {
+                value(item);
+            }
+            return endArray();
+        }
+        String json = GSON.toJson(value);
+        separator();
+        writeChars(json, false);
+        return this;
+    }
+
+    // ---- completion ----
+
+    /**
+     * Finish the response: send headers (if not yet sent), flush and close the body,
+     * and return the buffer to the pool.
+     *
+     * Only a complete JSON value is sent. If writing stopped part way (the handler
+     * threw), nothing is sent when the response is still buffered, so the caller can
+     * answer with an error instead; when it is already streaming the body is left
+     * unterminated, so the connection is dropped rather than ending as a short 200.
+     * Either way this throws.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buf == null) {
+            return;
+        }
+        if (depth != 0 || !hasValue[0]) {
+            release();
+            throw new IllegalStateException("JSON response incomplete");
+        }
+        try {
+            if (out == null && !(gzipAccepted && pos >= GZIP_MIN_BYTES)) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                if (pos >= GZIP_MIN_BYTES) {
+                    exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                }
+                exchange.sendResponseHeaders(statusCode, pos == 0 ? -1 : pos);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(buf, 0, pos);
+                }
+            } else {
+                flushBuffer();
+                out.close();
+            }
+        } finally {
+            release();
+        }
+    }
+
+    private static byte[] acquire() {
+        byte[] pooled = POOL.poll();
+        if (pooled != null) {
+            POOLED.decrementAndGet();
+            return pooled;
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private void release() {
+        byte[] b = buf;
+        buf = null;
+        if (POOLED.incrementAndGet() <= MAX_POOLED) {
+            POOL.offer(b);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+    private void commitStreaming() throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        if (gzipAccepted) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(statusCode, 0); // chunked
+        OutputStream body = exchange.getResponseBody();
+        out = gzipAccepted ? new GZIPOutputStream(body, BUFFER_SIZE) : body;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out == null) {
+            commitStreaming();
+        }
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    // ---- encoding ----
+
+    private JsonResponseWriter open(char c) throws IOException {
+        separator();
+        writeByte(c);
+        if (++depth >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting too deep");
+        }
+        hasValue[depth] = false;
+        return this;
+    }
+
+    private JsonResponseWriter close(char c) throws IOException {
+        depth--;
+        writeByte(c);
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasValue[depth]) {
+            writeByte(',');
+        }
+        hasValue[depth] = true;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = (byte) b;
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            writeByte(s.charAt(i));
+        }
+    }
+
+    private void writeLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        if (v < 0) {
+            writeByte('-');
+            v = -v;
+        }
+        long div = 1;
+        while (v / div >= 10) {
+            div *= 10;
+        }
+        for (; div > 0; div /= 10) {
+            writeByte((int) ('0' + (v / div) % 10));
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        writeByte('"');
+        writeChars(s, true);
+        writeByte('"');
+    }
+
+    /**
+     * UTF-8 encode s, applying JSON string escaping when escape is set.
+     */
+    private void writeChars(String s, boolean escape) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (!escape) {
+                    writeByte(c);
+                } else if (c == '"' || c == '\\') {
+                    writeByte('\\');
+                    writeByte(c);
+                } else if (c < 0x20) {
+                    writeControl(c);
+                } else {
+                    writeByte(c);
+                }
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (escape && (c == '\u2028' || c == '\u2029')) {
+                writeEscape(c); // matches Gson: invalid in JavaScript string literals
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                writeByte(0xF0 | (cp >> 18));
+                writeByte(0x80 | ((cp >> 12) & 0x3F));
+                writeByte(0x80 | ((cp >> 6) & 0x3F));
+                writeByte(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?'); // unpaired surrogate
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeControl(char c) throws IOException {
+        switch (c) {
+            case '\n': writeByte('\\'); writeByte('n'); break;
+            case '\r': writeByte('\\'); writeByte('r'); break;
+            case '\t': writeByte('\\'); writeByte('t'); break;
+            case '\b': writeByte('\\'); writeByte('b'); break;
+            case '\f': writeByte('\\'); writeByte('f'); break;
+            default: writeEscape(c);
+        }
+    }
+
+    private void writeEscape(char c) throws IOException {
+        writeByte('\\');
+        writeByte('u');
+        writeByte(HEX[(c >> 12) & 0xF]);
+        writeByte(HEX[(c >> 8) & 0xF]);
+        writeByte(HEX[(c >> 4) & 0xF]);
+        writeByte(HEX[c & 0xF]);
+    }
+}
@@ -0,0 +1,930 @@
+package com.runbad.bridge.api;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selector-based HTTP/1.1 engine with keep-alive, on TCP or a Unix domain socket.
+ *
+ * One selector thread accepts connections, reads and writes. A complete request
+ * (headers plus Content-Length body) is handed to the executor as an HttpExchange;
+ * the response is buffered and written back by the selector thread, after which the
+ * connection waits for its next request. Chunked responses that the handler flushes
+ * are streamed instead. Request bodies must carry Content-Length.
+ */
+public class NioHttpTransport implements HttpTransport {
+
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final long IDLE_TIMEOUT_MS = 30_000;
+    // A streaming handler blocks in flush() while more than this is waiting to be written
+    private static final long MAX_PENDING_BYTES = 256 * 1024;
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    private static final byte[] CRLF_CRLF = {'\r', '\n', '\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    private final SocketAddress address;
+    private final Executor executor;
+    private final Logger logger;
+    private final List<Context> contexts = new CopyOnWriteArrayList<>();
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    /**
+     * @param address an InetSocketAddress, or a UnixDomainSocketAddress (Java 16+)
+     */
+    public NioHttpTransport(SocketAddress address, Executor executor, Logger logger) {
+        this.address = address;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler) {
+        contexts.add(new Context(path, handler));
+    }
+
+    @Override
+    public void start() throws IOException {
+        selector = Selector.open();
+        try {
+            if (address instanceof UnixDomainSocketAddress) {
+                Path path = ((UnixDomainSocketAddress) address).getPath();
+                removeStaleSocket(path);
+                serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                bindUnix(path);
+            } else {
+                serverChannel = ServerSocketChannel.open();
+                serverChannel.bind(address, 128);
+            }
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException | RuntimeException e) {
+            if (serverChannel != null) {
+                closeQuietly(serverChannel);
+            }
+            closeQuietly(selector);
+            serverChannel = null;
+            selector = null;
+            throw e;
+        }
+
+        accepting = true;
+        running = true;
+        selectorThread = new Thread(this::run, "RunbadBridge-NIO");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Delete a socket file left behind by a crash, which would make bind fail. A
+     * socket that still accepts connections belongs to a running server and is left
+     * alone.
+     */
+    private static void removeStaleSocket(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        if (Files.isRegularFile(path) || Files.isDirectory(path)) {
+            throw new IOException(path + " exists and is not a socket");
+        }
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(UnixDomainSocketAddress.of(path));
+        } catch (ConnectException e) {
+            Files.deleteIfExists(path); // nothing listening
+            return;
+        }
+        throw new IOException("Another server is listening on " + path);
+    }
+
+    /**
+     * Bind the socket in a private rwx------ directory, open it up to rw-rw---- and
+     * only then link it into place, so it is never reachable with the process
+     * umask's permissions. Linking fails rather than replace a socket another
+     * server created meanwhile.
+     */
+    private void bindUnix(Path path) throws IOException {
+        Path dir;
+        try {
+            dir = Files.createTempDirectory(path.toAbsolutePath().getParent(), ".sock",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            // Non-POSIX filesystem, keep the default permissions
+            serverChannel.bind(address);
+            return;
+        }
+        Path temp = dir.resolve(path.getFileName());
+        try {
+            serverChannel.bind(UnixDomainSocketAddress.of(temp));
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-rw----"));
+            Files.createLink(path, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        if (selectorThread == null) {
+            return;
+        }
+        accepting = false;
+        selector.wakeup();
+
+        // In-flight responses are still written by the selector thread
+        long deadline = System.currentTimeMillis() + delaySeconds * 1000L;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selectorThread = null;
+
+        if (address instanceof UnixDomainSocketAddress) {
+            try {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            } catch (IOException e) {
+                logger.warning("Could not remove socket file: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        if (address instanceof UnixDomainSocketAddress) {
+            return "nio on unix:" + ((UnixDomainSocketAddress) address).getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return "nio on " + inet.getHostString() + ":" + inet.getPort();
+    }
+
+    /**
+     * Exchanges handed to the executor whose response is not yet queued.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // ---- selector thread ----
+
+    private void run() {
+        long lastIdleCheck = System.currentTimeMillis();
+        try {
+            while (running) {
+                selector.select(1000);
+                if (!accepting && serverChannel.isOpen()) {
+                    closeQuietly(serverChannel);
+                }
+
+                Connection done;
+                while ((done = completed.poll()) != null) {
+                    write(done);
+                }
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read((Connection) key.attachment());
+                        } else if (key.isWritable()) {
+                            write((Connection) key.attachment());
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() instanceof Connection) {
+                            close((Connection) key.attachment());
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                long now = System.currentTimeMillis();
+                if (now - lastIdleCheck >= 1000) {
+                    lastIdleCheck = now;
+                    closeIdle(now);
+                }
+            }
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, "HTTP selector thread failed", t);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            Connection conn = new Connection(channel);
+            conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+        }
+    }
+
+    private void read(Connection conn) throws IOException {
+        if (!conn.in.hasRemaining()) {
+            if (conn.busy) {
+                // Pipelined input piling up behind a running request; resume after it
+                conn.key.interestOps(0);
+                return;
+            }
+            conn.grow();
+        }
+        int n = conn.channel.read(conn.in);
+        if (n < 0) {
+            close(conn);
+            return;
+        }
+        conn.lastActive = System.currentTimeMillis();
+        parse(conn);
+    }
+
+    /**
+     * Dispatch the next request if the buffer holds a complete one.
+     */
+    private void parse(Connection conn) {
+        if (conn.busy) {
+            return;
+        }
+        ByteBuffer in = conn.in;
+        byte[] data = in.array();
+        int filled = in.position();
+
+        int headerEnd = indexOf(data, filled, CRLF_CRLF);
+        if (headerEnd < 0) {
+            if (filled >= MAX_HEADER_BYTES) {
+                reject(conn, 431, "Request header fields too large");
+            }
+            return;
+        }
+
+        Request request = Request.parse(data, headerEnd);
+        if (request == null) {
+            reject(conn, 400, "Malformed request");
+            return;
+        }
+        if (request.headers.containsKey("Transfer-encoding")) {
+            reject(conn, 411, "Content-Length required");
+            return;
+        }
+        int bodyLength;
+        try {
+            String length = request.headers.getFirst("Content-length");
+            bodyLength = length == null ? 0 : Integer.parseInt(length.trim());
+        } catch (NumberFormatException e) {
+            bodyLength = -1;
+        }
+        if (bodyLength < 0) {
+            reject(conn, 400, "Invalid Content-Length");
+            return;
+        }
+        if (bodyLength > MAX_BODY_BYTES) {
+            reject(conn, 413, "Request body too large");
+            return;
+        }
+
+        int bodyStart = headerEnd + CRLF_CRLF.length;
+        int requestEnd = bodyStart + bodyLength;
+        if (filled < requestEnd) {
+            conn.ensureCapacity(requestEnd);
+            return;
+        }
+
+        byte[] body = new byte[bodyLength];
+        System.arraycopy(data, bodyStart, body, 0, bodyLength);
+        // Keep pipelined bytes for the next request
+        System.arraycopy(data, requestEnd, data, 0, filled - requestEnd);
+        in.position(filled - requestEnd);
+
+        conn.keepAlive = request.keepAlive();
+        conn.busy = true;
+        conn.responseDone = false;
+        // Still reading while the handler runs, so a client that leaves is noticed at once
+        dispatch(conn, new Exchange(conn, request, body));
+    }
+
+    private void dispatch(Connection conn, Exchange exchange) {
+        HttpHandler handler = null;
+        int best = -1;
+        String path = exchange.uri.getPath();
+        for (Context context : contexts) {
+            if (path.startsWith(context.path) && context.path.length() > best) {
+                handler = context.handler;
+                best = context.path.length();
+            }
+        }
+        if (handler == null) {
+            reject(conn, 404, "No context found for request");
+            return;
+        }
+
+        HttpHandler target = handler;
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    target.handle(exchange);
+                    // Handlers are synchronous: once they return, the exchange is over
+                    exchange.close();
+                } catch (Throwable t) {
+                    logger.log(Level.WARNING, "Unhandled error in HTTP handler", t);
+                    exchange.abort();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            close(conn);
+        }
+    }
+
+    /**
+     * Answer a request that never reached a handler, then close the connection.
+     */
+    private void reject(Connection conn, int status, String message) {
+        byte[] body = ("{\"error\":true,\"status\":" + status + ",\"message\":\"" + message + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        Headers headers = new Headers();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        conn.keepAlive = false;
+        conn.busy = true;
+        conn.enqueue(encodeResponse(status, headers, body, body.length, false));
+        conn.responseDone = true;
+        write(conn);
+    }
+
+    private void write(Connection conn) {
+        if (!conn.channel.isOpen()) {
+            return;
+        }
+        // Read first: once set, everything the handler will send is already queued
+        boolean done = conn.responseDone;
+        try {
+            while (true) {
+                if (conn.out == null) {
+                    conn.out = conn.pending.poll();
+                    if (conn.out == null) {
+                        break;
+                    }
+                }
+                conn.pendingBytes.addAndGet(-conn.channel.write(conn.out));
+                if (conn.out.hasRemaining()) {
+                    conn.key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                conn.out = null;
+            }
+        } catch (IOException e) {
+            close(conn);
+            return;
+        } finally {
+            conn.wakeProducer();
+        }
+
+        if (!done) {
+            // Streaming response with more to come; the handler signals on its next flush
+            conn.key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+
+        conn.busy = false;
+        conn.lastActive = System.currentTimeMillis();
+        if (!conn.keepAlive) {
+            close(conn);
+            return;
+        }
+        conn.key.interestOps(SelectionKey.OP_READ);
+        if (conn.in.position() > 0) {
+            parse(conn);
+        }
+    }
+
+    private void closeIdle(long now) {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                Connection conn = (Connection) key.attachment();
+                if (!conn.busy && now - conn.lastActive > IDLE_TIMEOUT_MS) {
+                    close(conn);
+                }
+            }
+        }
+    }
+
+    private void close(Connection conn) {
+        if (conn.key != null) {
+            conn.key.cancel();
+        }
+        closeQuietly(conn.channel);
+        conn.wakeProducer();
+    }
+
+    /**
+     * Hand a connection with newly queued response bytes to the selector thread.
+     */
+    private void signal(Connection conn) {
+        completed.add(conn);
+        selector.wakeup();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static int indexOf(byte[] data, int limit, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= limit - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static ByteBuffer encodeResponse(int status, Headers headers, byte[] body, int length, boolean omitBody) {
+        boolean bodyless = omitBody || status == 304 || status == 204;
+        byte[] head = encodeHead(status, headers, status == 304 || status == 204 ? -2 : bodyless ? 0 : length);
+        int bodyLength = bodyless ? 0 : length;
+        ByteBuffer out = ByteBuffer.allocate(head.length + bodyLength);
+        out.put(head).put(body, 0, bodyLength).flip();
+        return out;
+    }
+
+    /**
+     * Status line and headers. contentLength -1 means chunked, -2 means no length header.
+     */
+    private static byte[] encodeHead(int status, Headers headers, long contentLength) {
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(reason(status)).append("\r\n");
+        head.append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC))).append("\r\n");
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey();
+            if (name.equalsIgnoreCase("Content-length") || name.equalsIgnoreCase("Transfer-encoding")) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                head.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (contentLength == -1) {
+            head.append("Transfer-Encoding: chunked\r\n");
+        } else if (contentLength >= 0) {
+            head.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        head.append("\r\n");
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 411: return "Length Required";
+            case 413: return "Payload Too Large";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default: return "";
+        }
+    }
+
+    // ---- state ----
+
+    private static class Context {
+        final String path;
+        final HttpHandler handler;
+
+        Context(String path, HttpHandler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+    }
+
+    private static class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        // Response bytes queued by the handler thread, written by the selector thread
+        final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+        final AtomicLong pendingBytes = new AtomicLong();
+        ByteBuffer out;
+        volatile boolean responseDone;
+        volatile long lastActive = System.currentTimeMillis();
+        volatile boolean busy;
+        boolean keepAlive;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void enqueue(ByteBuffer buffer) {
+            pendingBytes.addAndGet(buffer.remaining());
+            pending.add(buffer);
+        }
+
+        /**
+         * Block a streaming handler until the client has taken most of what is queued.
+         */
+        synchronized void awaitDrain() throws IOException {
+            try {
+                while (pendingBytes.get() > MAX_PENDING_BYTES && channel.isOpen()) {
+                    wait(100);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (!channel.isOpen()) {
+                throw new IOException("Connection closed");
+            }
+        }
+
+        synchronized void wakeProducer() {
+            notifyAll();
+        }
+
+        void grow() {
+            ensureCapacity(in.capacity() * 2);
+        }
+
+        void ensureCapacity(int capacity) {
+            if (in.capacity() >= capacity) {
+                return;
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(capacity);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+
+        SocketAddress remoteAddress() {
+            try {
+                SocketAddress remote = channel.getRemoteAddress();
+                // Unix socket peers have no IP; treat them as loopback for rate limiting and logs
+                return remote instanceof InetSocketAddress ? remote : LOOPBACK;
+            } catch (IOException e) {
+                return LOOPBACK;
+            }
+        }
+
+        SocketAddress localAddress() {
+            try {
+                SocketAddress local = channel.getLocalAddress();
+                return local instanceof InetSocketAddress ? local : LOOPBACK;
+            } catch (IOException e) {
+                return LOOPBACK;
+            }
+        }
+    }
+
+    private static class Request {
+        final String method;
+        final String target;
+        final String protocol;
+        final Headers headers;
+
+        private Request(String method, String target, String protocol, Headers headers) {
+            this.method = method;
+            this.target = target;
+            this.protocol = protocol;
+            this.headers = headers;
+        }
+
+        static Request parse(byte[] data, int headerEnd) {
+            String[] lines = new String(data, 0, headerEnd, StandardCharsets.ISO_8859_1).split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+                return null;
+            }
+            Headers headers = new Headers();
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    return null;
+                }
+                headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+            return new Request(requestLine[0], requestLine[1], requestLine[2], headers);
+        }
+
+        boolean keepAlive() {
+            String connection = headers.getFirst("Connection");
+            if ("HTTP/1.0".equals(protocol)) {
+                return connection != null && connection.equalsIgnoreCase("keep-alive");
+            }
+            return connection == null || !connection.equalsIgnoreCase("close");
+        }
+    }
+
+    /**
+     * One request/response on a connection. The response body is buffered and
+     * handed to the selector thread when the stream or exchange is closed.
+     */
+    private class Exchange extends HttpExchange {
+        private final Connection conn;
+        private final Request request;
+        private final URI uri;
+        private final Headers responseHeaders = new Headers();
+        private final Map<String, Object> attributes = new HashMap<>();
+        private InputStream requestBody;
+        private final ResponseBody responseBody = new ResponseBody();
+        // responseBody, or a filter's stream wrapping it
+        private OutputStream responseStream = responseBody;
+        private int responseCode = -1;
+        private boolean noBody;
+        private boolean chunked;
+        private boolean streaming;
+        private boolean finished;
+
+        Exchange(Connection conn, Request request, byte[] body) {
+            this.conn = conn;
+            this.request = request;
+            URI parsed;
+            try {
+                parsed = URI.create(request.target);
+            } catch (IllegalArgumentException e) {
+                parsed = URI.create("/");
+            }
+            this.uri = parsed;
+            this.requestBody = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public Headers getRequestHeaders() {
+            return request.headers;
+        }
+
+        @Override
+        public Headers getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public URI getRequestURI() {
+            return uri;
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return request.method;
+        }
+
+        @Override
+        public HttpContext getHttpContext() {
+            return null; // contexts here are plain path prefixes
+        }
+
+        /**
+         * Closing a filter's stream lets it write what it buffered before the
+         * response is finished; if that fails the response is aborted.
+         */
+        @Override
+        public void close() {
+            if (responseStream != responseBody) {
+                try {
+                    responseStream.close();
+                } catch (IOException e) {
+                    abort();
+                    return;
+                }
+            }
+            finish();
+        }
+
+        @Override
+        public InputStream getRequestBody() {
+            return requestBody;
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return responseStream;
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+            if (responseCode != -1) {
+                throw new IOException("headers already sent");
+            }
+            responseCode = rCode;
+            noBody = responseLength == -1;
+            chunked = responseLength == 0;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return (InetSocketAddress) conn.remoteAddress();
+        }
+
+        @Override
+        public int getResponseCode() {
+            return responseCode;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return (InetSocketAddress) conn.localAddress();
+        }
+
+        @Override
+        public String getProtocol() {
+            return request.protocol;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        /**
+         * For filters: replace the request and/or response stream with one wrapping
+         * it. A null argument leaves that stream as it is.
+         */
+        @Override
+        public void setStreams(InputStream i, OutputStream o) {
+            if (i != null) {
+                requestBody = i;
+            }
+            if (o != null) {
+                responseStream = o;
+            }
+        }
+
+        @Override
+        public HttpPrincipal getPrincipal() {
+            return null;
+        }
+
+        /**
+         * The handler failed. Answer 500 if nothing was sent yet; otherwise drop the
+         * connection so a partly written body can't pass for a complete response.
+         */
+        private void abort() {
+            synchronized (this) {
+                if (!finished && responseCode != -1) {
+                    finished = true;
+                    inFlight.decrementAndGet();
+                    NioHttpTransport.this.close(conn);
+                    return;
+                }
+            }
+            finish();
+        }
+
+        private synchronized void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (streaming) {
+                responseBody.sendChunk();
+                conn.enqueue(ByteBuffer.wrap(LAST_CHUNK));
+            } else {
+                if (responseCode == -1) {
+                    // Handler returned without answering
+                    responseCode = 500;
+                    noBody = true;
+                    conn.keepAlive = false;
+                }
+                boolean omitBody = noBody || "HEAD".equals(request.method);
+                conn.enqueue(encodeResponse(responseCode, responseHeaders, responseBody.buffer(),
+                        responseBody.size(), omitBody));
+            }
+            conn.responseDone = true;
+            inFlight.decrementAndGet();
+            signal(conn);
+        }
+
+        /**
+         * Buffers the body. Responses are sent with Content-Length when the exchange
+         * closes, unless the handler asked for a chunked response (length 0) and
+         * flushes, in which case each flush goes out as a chunk.
+         */
+        private class ResponseBody extends ByteArrayOutputStream {
+            ResponseBody() {
+                super(512);
+            }
+
+            byte[] buffer() {
+                return buf;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                synchronized (Exchange.this) {
+                    if (finished || !chunked || "HEAD".equals(request.method)) {
+                        return;
+                    }
+                    if (!streaming) {
+                        streaming = true;
+                        conn.enqueue(ByteBuffer.wrap(encodeHead(responseCode, responseHeaders, -1)));
+                    }
+                    sendChunk();
+                }
+                signal(conn);
+                conn.awaitDrain();
+            }
+
+            void sendChunk() {
+                if (count == 0) {
+                    return;
+                }
+                byte[] size = (Integer.toHexString(count) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+                ByteBuffer chunk = ByteBuffer.allocate(size.length + count + 2);
+                chunk.put(size).put(buf, 0, count).put((byte) '\r').put((byte) '\n').flip();
+                conn.enqueue(chunk);
+                reset();
+            }
+
+            @Override
+            public void close() {
+                finish();
+            }
+        }
+    }
+}
@@ -1,23 +1,49 @@
 package com.runbad.bridge.api;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Simple token-bucket-style rate limiter per IP address.
+ * GCRA (generic cell rate algorithm) rate limiter per IP address.
+ *
+ * Each limit keeps a single "theoretical arrival time" per client: every allowed
+ * request pushes it forward by period / limit, and a request is rejected when that
+ * would put it more than one period ahead of now. This allows a burst of up to
+ * {@code limit} requests and then a smooth rate, with no window boundary to game.
+ * Known clients cost no allocation; a client whose arrival times have passed is
+ * indistinguishable from a new one and is evicted on the next sweep.
  */
 public class RateLimiter {
 
-    private final int maxPerMinute;
-    private final int maxPerSecond;
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
 
-    private final Map<String, BucketEntry> minuteBuckets = new ConcurrentHashMap<>();
-    private final Map<String, BucketEntry> secondBuckets = new ConcurrentHashMap<>();
+    private static final AtomicLongFieldUpdater<Client> SECOND_TAT =
+            AtomicLongFieldUpdater.newUpdater(Client.class, "secondTat");
+    private static final AtomicLongFieldUpdater<Client> MINUTE_TAT =
+            AtomicLongFieldUpdater.newUpdater(Client.class, "minuteTat");
+
+    // Emission interval (nanos per request) and burst tolerance for each limit
+    private final long secondInterval;
+    private final long secondTolerance;
+    private final long minuteInterval;
+    private final long minuteTolerance;
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final LongAdder rejected = new LongAdder();
 
     public RateLimiter(int maxPerMinute, int maxPerSecond) {
-        this.maxPerMinute = maxPerMinute;
-        this.maxPerSecond = maxPerSecond;
+        this.secondInterval = SECOND_NANOS / Math.max(1, maxPerSecond);
+        this.secondTolerance = SECOND_NANOS - secondInterval;
+        this.minuteInterval = MINUTE_NANOS / Math.max(1, maxPerMinute);
+        this.minuteTolerance = MINUTE_NANOS - minuteInterval;
     }
 
     /**
@@ -25,38 +51,76 @@ public class RateLimiter {
      * Returns true if allowed, false if rate limited.
      */
     public boolean tryAcquire(String ip) {
-        long now = System.currentTimeMillis();
+        long now = System.nanoTime();
+        maybeSweep(now);
+
+        Client client = clients.get(ip);
+        if (client == null) {
+            client = clients.computeIfAbsent(ip, k -> new Client(now));
+        }
+
+        // Like the old fixed windows, a request rejected by the minute limit
+        // still counts against the per-second limit.
+        if (acquire(SECOND_TAT, client, now, secondInterval, secondTolerance)
+                && acquire(MINUTE_TAT, client, now, minuteInterval, minuteTolerance)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Requests rejected since startup.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
 
-        // Check per-second limit
-        BucketEntry secEntry = secondBuckets.compute(ip, (k, v) -> {
-            if (v == null || (now - v.windowStart) >= 1000) {
-                return new BucketEntry(now, 1);
+    /**
+     * Number of clients currently tracked.
+     */
+    public int getTrackedClients() {
+        return clients.size();
+    }
+
+    private static boolean acquire(AtomicLongFieldUpdater<Client> tat, Client client, long now,
+                                   long interval, long tolerance) {
+        while (true) {
+            long current = tat.get(client);
+            long start = current - now > 0 ? current : now;
+            if (start - now > tolerance) {
+                return false;
+            }
+            if (tat.compareAndSet(client, current, start + interval)) {
+                return true;
             }
-            v.count.incrementAndGet();
-            return v;
-        });
-        if (secEntry.count.get() > maxPerSecond) {
-            return false;
         }
+    }
 
-        // Check per-minute limit
-        BucketEntry minEntry = minuteBuckets.compute(ip, (k, v) -> {
-            if (v == null || (now - v.windowStart) >= 60000) {
-                return new BucketEntry(now, 1);
+    /**
+     * Drop clients that have fully recovered, at most once per interval.
+     */
+    private void maybeSweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        Iterator<Client> it = clients.values().iterator();
+        while (it.hasNext()) {
+            Client client = it.next();
+            if (client.secondTat - now <= 0 && client.minuteTat - now <= 0) {
+                it.remove();
             }
-            v.count.incrementAndGet();
-            return v;
-        });
-        return minEntry.count.get() <= maxPerMinute;
+        }
     }
 
-    private static class BucketEntry {
-        final long windowStart;
-        final AtomicInteger count;
+    private static class Client {
+        volatile long secondTat;
+        volatile long minuteTat;
 
-        BucketEntry(long windowStart, int initialCount) {
-            this.windowStart = windowStart;
-            this.count = new AtomicInteger(initialCount);
+        Client(long now) {
+            this.secondTat = now;
+            this.minuteTat = now;
         }
     }
 }
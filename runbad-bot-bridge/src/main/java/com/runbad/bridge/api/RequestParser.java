@@ -0,0 +1,229 @@
+package com.runbad.bridge.api;
+
+import java.util.UUID;
+
+/**
+ * Request parsing without regexes or intermediate arrays: query parameters,
+ * Discord snowflakes, UUIDs and the Authorization header. Nothing here allocates
+ * except the values returned.
+ */
+public final class RequestParser {
+
+    private RequestParser() {
+    }
+
+    /**
+     * Value of the first {@code key=value} pair in a (decoded) query string, or
+     * null. A single pass over the query; only the returned value is copied.
+     */
+    public static String queryParam(String query, String key) {
+        if (query == null) {
+            return null;
+        }
+        int keyLength = key.length();
+        int start = 0;
+        int length = query.length();
+        while (start < length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int eq = start + keyLength;
+            if (eq < end && query.charAt(eq) == '=' && query.regionMatches(start, key, 0, keyLength)) {
+                return query.substring(eq + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * A Discord snowflake (17-20 digits) as a long, or -1 if the string isn't one.
+     * Values past Long.MAX_VALUE are rejected; Discord ids stay below 2^63. A
+     * leading zero is rejected too, so each id has one spelling: otherwise "0" plus
+     * a 17-digit id would share that id's cache and index key.
+     */
+    public static long parseSnowflake(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int length = id.length();
+        if (length < 17 || length > 20 || id.charAt(0) == '0') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * True for the canonical 8-4-4-4-12 hex form, either case.
+     */
+    public static boolean isUuid(String uuid) {
+        if (uuid == null || uuid.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = uuid.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (hexValue(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The UUID in canonical form, or null. Unlike UUID.fromString this rejects
+     * short groups such as "1-2-3-4-5".
+     */
+    public static UUID parseUuid(String uuid) {
+        if (!isUuid(uuid)) {
+            return null;
+        }
+        long msb = hex(uuid, 0, 8) << 32 | hex(uuid, 9, 13) << 16 | hex(uuid, 14, 18);
+        long lsb = hex(uuid, 19, 23) << 48 | hex(uuid, 24, 36);
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * The Authorization header value a request must send: "Bearer " + token.
+     * Kept as chars so it can be compared against the header String directly.
+     */
+    public static char[] bearer(String token) {
+        return ("Bearer " + token).toCharArray();
+    }
+
+    /**
+     * Compare a header against the expected value in time that depends only on
+     * the expected length, so response timing doesn't reveal how much of a
+     * guessed token was right.
+     */
+    public static boolean constantTimeEquals(String actual, char[] expected) {
+        if (actual == null) {
+            return false;
+        }
+        int actualLength = actual.length();
+        int diff = actualLength ^ expected.length;
+        for (int i = 0; i < expected.length; i++) {
+            char c = i < actualLength ? actual.charAt(i) : 0;
+            diff |= c ^ expected[i];
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: a gzip or x-gzip coding, or
+     * failing that "*", listed without q=0.
+     */
+    public static boolean acceptsGzip(String header) {
+        if (header == null) {
+            return false;
+        }
+        int gzip = -1; // -1 not listed, 0 refused, 1 accepted
+        int wildcard = -1;
+        int length = header.length();
+        int start = 0;
+        while (start < length) {
+            int end = header.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int params = header.indexOf(';', start);
+            if (params < 0 || params > end) {
+                params = end;
+            }
+            int from = skipSpaces(header, start, params);
+            int to = params;
+            while (to > from && isSpace(header.charAt(to - 1))) {
+                to--;
+            }
+            int accepted = qAboveZero(header, params, end) ? 1 : 0;
+            if (isToken(header, from, to, "gzip") || isToken(header, from, to, "x-gzip")) {
+                gzip = Math.max(gzip, accepted);
+            } else if (isToken(header, from, to, "*")) {
+                wildcard = Math.max(wildcard, accepted);
+            }
+            start = end + 1;
+        }
+        return gzip >= 0 ? gzip == 1 : wildcard == 1;
+    }
+
+    /**
+     * Whether the parameters in [from, to) (";q=0.5" and the like) leave the
+     * q-value above 0. No q parameter means 1.
+     */
+    private static boolean qAboveZero(String header, int from, int to) {
+        int at = from;
+        while (at < to) {
+            int next = header.indexOf(';', at + 1);
+            if (next < 0 || next > to) {
+                next = to;
+            }
+            int param = skipSpaces(header, at + 1, next);
+            if (param + 1 < next && (header.charAt(param) == 'q' || header.charAt(param) == 'Q')
+                    && header.charAt(param + 1) == '=') {
+                for (int i = param + 2; i < next; i++) {
+                    char c = header.charAt(i);
+                    if (c >= '1' && c <= '9') {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            at = next;
+        }
+        return true;
+    }
+
+    private static boolean isToken(String s, int from, int to, String token) {
+        return to - from == token.length() && s.regionMatches(true, from, token, 0, token.length());
+    }
+
+    private static int skipSpaces(String s, int from, int to) {
+        while (from < to && isSpace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Hex digits [from, to) of an already validated string.
+     */
+    private static long hex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | hexValue(s.charAt(i));
+        }
+        return value;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,66 @@
+package com.runbad.bridge.cache;
+
+/**
+ * Bloom filter over keys of one or two longs: "definitely absent" or "maybe
+ * present". Sized at 10 bits per expected key with 4 probes, about 1% false
+ * positives at that load. Keys can't be removed; a removed key keeps answering
+ * "maybe" until the filter is rebuilt.
+ *
+ * Not thread-safe: callers serialize adds, and readers that race an add must
+ * detect it themselves (LinkIndex reads under an optimistic stamp).
+ */
+public final class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int PROBES = 4;
+
+    private final long[] words;
+    private final long mask;
+
+    public BloomFilter(int expectedKeys) {
+        long bits = Long.highestOneBit(Math.max(1024L, (long) expectedKeys * BITS_PER_KEY) * 2 - 1);
+        this.words = new long[(int) (bits >>> 6)];
+        this.mask = bits - 1;
+    }
+
+    public void add(long k1, long k2) {
+        long h = mix(k1, k2);
+        long step = (h >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = h & mask;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+            h += step;
+        }
+    }
+
+    public boolean mightContain(long k1, long k2) {
+        long h = mix(k1, k2);
+        long step = (h >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = h & mask;
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+            h += step;
+        }
+        return true;
+    }
+
+    /**
+     * Size of the bit array in bytes.
+     */
+    public int getBytes() {
+        return words.length * 8;
+    }
+
+    private static long mix(long k1, long k2) {
+        // murmur3 fmix64
+        long h = k1 * 0x9E3779B97F4A7C15L ^ k2;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
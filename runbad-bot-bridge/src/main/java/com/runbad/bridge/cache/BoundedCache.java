@@ -0,0 +1,43 @@
+package com.runbad.bridge.cache;
+
+/**
+ * What the plugin needs from any of its caches, whatever the key type: the
+ * periodic sweep, clearing on reload, and the counters shown by /bridgestatus
+ * and /metrics.
+ */
+public interface BoundedCache {
+
+    /**
+     * Remove every expired entry. Returns the number removed.
+     */
+    int sweep();
+
+    void clear();
+
+    int size();
+
+    int getMaxSize();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Entries removed to stay within the size limit.
+     */
+    long getEvictions();
+
+    /**
+     * Entries removed because their TTL passed.
+     */
+    long getExpirations();
+
+    /**
+     * Fraction of lookups served from the cache, 0.0 when there were none.
+     */
+    default double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+}
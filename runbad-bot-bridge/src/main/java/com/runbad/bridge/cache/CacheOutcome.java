@@ -0,0 +1,59 @@
+package com.runbad.bridge.cache;
+
+/**
+ * Tally of cache hits and misses made by the current request, for the access log.
+ * Only reads on the request's own thread are seen; lookups handed to another
+ * executor (e.g. /v1/profile's parallel lookups) are not.
+ *
+ * Off until enabled, and then one ThreadLocal lookup per cache read.
+ */
+public final class CacheOutcome {
+
+    public static final int NONE = 0; // no cache reads
+    public static final int HIT = 1; // every read hit
+    public static final int MISS = 2; // at least one read missed
+
+    private static volatile boolean enabled;
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private CacheOutcome() {
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Start counting for a request on this thread.
+     */
+    public static void begin() {
+        if (enabled) {
+            CURRENT.set(new int[2]);
+        }
+    }
+
+    /**
+     * Stop counting and return NONE, HIT or MISS.
+     */
+    public static int end() {
+        if (!enabled) {
+            return NONE;
+        }
+        int[] tally = CURRENT.get();
+        if (tally == null) {
+            return NONE;
+        }
+        CURRENT.remove();
+        return tally[1] > 0 ? MISS : tally[0] > 0 ? HIT : NONE;
+    }
+
+    static void record(boolean hit) {
+        if (!enabled) {
+            return;
+        }
+        int[] tally = CURRENT.get();
+        if (tally != null) {
+            tally[hit ? 0 : 1]++;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.runbad.bridge.cache;
+
+/**
+ * Change counters for keys of one or two longs, so a slow load can tell that an
+ * event changed its key while it was reading the backing store.
+ *
+ * An event calls {@link #bump} before it writes the fresh value. A load takes
+ * {@link #get} before it reads, and writes what it read through
+ * {@link #runIfCurrent}, which drops the write if the counter has moved. Counters
+ * are striped, so memory stays fixed; keys that share a stripe only cost each
+ * other a skipped cache write.
+ */
+public final class KeyGenerations {
+
+    private static final int STRIPES = 256;
+
+    private final long[] counters = new long[STRIPES];
+    private final Object[] locks = new Object[STRIPES];
+
+    public KeyGenerations() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public long get(long k1, long k2) {
+        int stripe = stripe(k1, k2);
+        synchronized (locks[stripe]) {
+            return counters[stripe];
+        }
+    }
+
+    public void bump(long k1, long k2) {
+        int stripe = stripe(k1, k2);
+        synchronized (locks[stripe]) {
+            counters[stripe]++;
+        }
+    }
+
+    /**
+     * Run write if the key's counter is still generation; the counter can't move
+     * while it runs. Returns whether it ran.
+     */
+    public boolean runIfCurrent(long k1, long k2, long generation, Runnable write) {
+        int stripe = stripe(k1, k2);
+        synchronized (locks[stripe]) {
+            if (counters[stripe] != generation) {
+                return false;
+            }
+            write.run();
+            return true;
+        }
+    }
+
+    private static int stripe(long k1, long k2) {
+        long h = (k1 ^ (k2 * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+        return (int) (h >>> 56);
+    }
+}
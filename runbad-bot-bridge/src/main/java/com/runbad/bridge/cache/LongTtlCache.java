@@ -0,0 +1,43 @@
+package com.runbad.bridge.cache;
+
+/**
+ * Bounded TTL cache keyed by a long, e.g. a Discord snowflake. See {@link PrimitiveTtlCache}.
+ */
+public class LongTtlCache<V> extends PrimitiveTtlCache<V> {
+
+    public LongTtlCache(int maxSize) {
+        super(maxSize, 1);
+    }
+
+    /**
+     * Returns the cached value, or null if absent or expired.
+     */
+    public V get(long key) {
+        return getEntry(key, 0);
+    }
+
+    /**
+     * Cache a value for ttlMs milliseconds. A non-positive TTL is a no-op.
+     */
+    public void put(long key, V value, long ttlMs) {
+        putEntry(key, 0, value, ttlMs);
+    }
+
+    /**
+     * Whether an unexpired value is cached, without counting a hit or miss.
+     */
+    public boolean contains(long key) {
+        return containsEntry(key, 0);
+    }
+
+    public void invalidate(long key) {
+        removeEntry(key, 0);
+    }
+
+    /**
+     * Up to max unexpired keys, most recently used first.
+     */
+    public long[] recentKeys(int max) {
+        return recentEntries(max);
+    }
+}
@@ -0,0 +1,525 @@
+package com.runbad.bridge.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link TtlCache} for keys that are one or two longs (Discord ids, UUIDs), with
+ * the same TTL, eviction and aging rules but none of its per-entry objects.
+ *
+ * Entries live in open-addressing tables split into segments. Each slot is a row
+ * across parallel arrays: the key, expiry, last access and frequency packed into
+ * one long, and the value reference. Reads are optimistic and take no lock unless
+ * a write to the same segment overlaps them; writes lock one segment.
+ */
+public abstract class PrimitiveTtlCache<V> implements BoundedCache {
+
+    private static final int MAX_FREQUENCY = 255;
+    private static final int MIN_CAPACITY = 16;
+    private static final Object TOMBSTONE = new Object();
+
+    private final int keyWidth;
+    private final int maxSize;
+    private final Segment[] segments;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long hitsAtLastAging;
+
+    /**
+     * @param keyWidth longs per key, 1 or 2
+     */
+    protected PrimitiveTtlCache(int maxSize, int keyWidth) {
+        this.keyWidth = keyWidth;
+        this.maxSize = Math.max(1, maxSize);
+        // Enough segments that writers rarely meet, few enough that small caches stay small
+        int count = Integer.highestOneBit(Math.max(1, Math.min(64, this.maxSize / 256)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(keyWidth, size);
+        }
+    }
+
+    /**
+     * The cached value, or null if absent or expired. k2 is ignored for one-long keys.
+     */
+    @SuppressWarnings("unchecked")
+    protected final V getEntry(long k1, long k2) {
+        long h = hash(k1, k2);
+        Segment segment = segmentFor(h);
+        long now = System.currentTimeMillis();
+
+        long stamp = segment.lock.tryOptimisticRead();
+        Table table = segment.table;
+        int slot = find(table, keyWidth, k1, k2, h);
+        Object value = slot < 0 ? null : table.values[slot];
+        long expiresAt = slot < 0 ? 0 : table.expiresAt[slot];
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                table = segment.table;
+                slot = find(table, keyWidth, k1, k2, h);
+                value = slot < 0 ? null : table.values[slot];
+                expiresAt = slot < 0 ? 0 : table.expiresAt[slot];
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+
+        if (slot < 0) {
+            misses.increment();
+            CacheOutcome.record(false);
+            return null;
+        }
+        if (now >= expiresAt) {
+            if (removeExpired(segment, k1, k2, h, now)) {
+                expirations.increment();
+            }
+            misses.increment();
+            CacheOutcome.record(false);
+            return null;
+        }
+        // Racy by design, an approximate count is enough; a slot reused meanwhile
+        // just gets another entry's access
+        int frequency = (int) (table.meta[slot] & 0xFF);
+        table.meta[slot] = meta(now, Math.min(MAX_FREQUENCY, frequency + 1));
+        hits.increment();
+        CacheOutcome.record(true);
+        return (V) value;
+    }
+
+    /**
+     * Cache a value for ttlMs milliseconds. A non-positive TTL is a no-op.
+     */
+    protected final void putEntry(long k1, long k2, V value, long ttlMs) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        long h = hash(k1, k2);
+        Segment segment = segmentFor(h);
+        long now = System.currentTimeMillis();
+        boolean added;
+        long stamp = segment.lock.writeLock();
+        try {
+            added = segment.put(k1, k2, h, value, now + ttlMs, meta(now, 0));
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        if (added && size.incrementAndGet() > maxSize) {
+            trim();
+        }
+    }
+
+    /**
+     * Whether an unexpired value is cached. Unlike getEntry, not counted as a hit or miss.
+     */
+    protected final boolean containsEntry(long k1, long k2) {
+        long h = hash(k1, k2);
+        Segment segment = segmentFor(h);
+        long stamp = segment.lock.readLock();
+        try {
+            Table table = segment.table;
+            int slot = find(table, keyWidth, k1, k2, h);
+            return slot >= 0 && System.currentTimeMillis() < table.expiresAt[slot];
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    protected final void removeEntry(long k1, long k2) {
+        long h = hash(k1, k2);
+        Segment segment = segmentFor(h);
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = find(segment.table, keyWidth, k1, k2, h);
+            if (slot >= 0) {
+                segment.remove(slot);
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Keys of up to max live entries, most recently used first, keyWidth longs per key.
+     */
+    protected final long[] recentEntries(int max) {
+        long now = System.currentTimeMillis();
+        long[] found = new long[64 * (1 + keyWidth)]; // last access, then the key
+        int count = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                Table table = segment.table;
+                for (int slot = 0; slot < table.values.length; slot++) {
+                    if (!isLive(table.values[slot]) || now >= table.expiresAt[slot]) {
+                        continue;
+                    }
+                    if ((count + 1) * (1 + keyWidth) > found.length) {
+                        found = Arrays.copyOf(found, found.length * 2);
+                    }
+                    int at = count++ * (1 + keyWidth);
+                    found[at] = lastAccess(table.meta[slot]);
+                    System.arraycopy(table.keys, slot * keyWidth, found, at + 1, keyWidth);
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        long[] entries = found;
+        int stride = 1 + keyWidth;
+        Arrays.sort(order, (a, b) -> Long.compare(entries[b * stride], entries[a * stride]));
+        long[] keys = new long[Math.min(max, count) * keyWidth];
+        for (int i = 0; i < keys.length / keyWidth; i++) {
+            System.arraycopy(entries, order[i] * stride + 1, keys, i * keyWidth, keyWidth);
+        }
+        return keys;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                size.addAndGet(-segment.live);
+                segment.reset(MIN_CAPACITY);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    @Override
+    public int sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                Table table = segment.table;
+                for (int slot = 0; slot < table.values.length; slot++) {
+                    if (isLive(table.values[slot]) && now >= table.expiresAt[slot]) {
+                        segment.remove(slot);
+                        removed++;
+                    }
+                }
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+        expirations.add(removed);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * Same policy as TtlCache: drop expired entries, then the least frequently used
+     * (ties broken by recency) down to 90% of capacity, then age the survivors.
+     * Segments are visited one at a time, so this works from a snapshot of ranks and
+     * leaves alone entries added or touched after it started.
+     */
+    private synchronized void trim() {
+        if (size.get() <= maxSize) {
+            return; // another thread already trimmed
+        }
+
+        long started = System.currentTimeMillis();
+        long[] ranks = new long[size.get() + 64];
+        int live = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                Table table = segment.table;
+                for (int slot = 0; slot < table.values.length; slot++) {
+                    if (!isLive(table.values[slot])) {
+                        continue;
+                    }
+                    if (started >= table.expiresAt[slot]) {
+                        segment.remove(slot);
+                        expirations.increment();
+                    } else {
+                        if (live == ranks.length) {
+                            ranks = Arrays.copyOf(ranks, live * 2);
+                        }
+                        ranks[live++] = rank(table.meta[slot]);
+                    }
+                }
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+
+        int target = maxSize - maxSize / 10;
+        if (live > target) {
+            int excess = live - target;
+            long[] sorted = Arrays.copyOf(ranks, live);
+            Arrays.sort(sorted);
+            long threshold = sorted[excess - 1];
+            int atThreshold = 0;
+            for (int i = excess - 1; i >= 0 && sorted[i] == threshold; i--) {
+                atThreshold++;
+            }
+            for (Segment segment : segments) {
+                long stamp = segment.lock.writeLock();
+                try {
+                    Table table = segment.table;
+                    for (int slot = 0; slot < table.values.length; slot++) {
+                        if (!isLive(table.values[slot]) || lastAccess(table.meta[slot]) >= started) {
+                            continue;
+                        }
+                        long rank = rank(table.meta[slot]);
+                        if (rank < threshold || rank == threshold && atThreshold-- > 0) {
+                            segment.remove(slot);
+                            evictions.increment();
+                        }
+                    }
+                } finally {
+                    segment.lock.unlockWrite(stamp);
+                }
+            }
+        }
+
+        // Age the survivors
+        long totalHits = hits.sum();
+        if (totalHits - hitsAtLastAging >= maxSize) {
+            hitsAtLastAging = totalHits;
+            for (Segment segment : segments) {
+                long stamp = segment.lock.writeLock();
+                try {
+                    Table table = segment.table;
+                    for (int slot = 0; slot < table.values.length; slot++) {
+                        if (isLive(table.values[slot])) {
+                            long meta = table.meta[slot];
+                            table.meta[slot] = meta(lastAccess(meta), (int) (meta & 0xFF) >>> 1);
+                        }
+                    }
+                } finally {
+                    segment.lock.unlockWrite(stamp);
+                }
+            }
+        }
+    }
+
+    private boolean removeExpired(Segment segment, long k1, long k2, long h, long now) {
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = find(segment.table, keyWidth, k1, k2, h);
+            if (slot >= 0 && now >= segment.table.expiresAt[slot]) {
+                segment.remove(slot);
+                return true;
+            }
+            return false;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    private Segment segmentFor(long h) {
+        return segments[(int) (h >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * Slot holding the key, or -1. Bounded by the table size so a read racing a
+     * write can't loop forever; the caller validates what it read.
+     */
+    private static int find(Table table, int keyWidth, long k1, long k2, long h) {
+        Object[] values = table.values;
+        long[] keys = table.keys;
+        int mask = values.length - 1;
+        int slot = (int) h & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            Object value = values[slot];
+            if (value == null) {
+                return -1;
+            }
+            if (value != TOMBSTONE && keys[slot * keyWidth] == k1
+                    && (keyWidth == 1 || keys[slot * keyWidth + 1] == k2)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static long hash(long k1, long k2) {
+        // murmur3 fmix64
+        long h = k1 * 0x9E3779B97F4A7C15L ^ k2;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static boolean isLive(Object value) {
+        return value != null && value != TOMBSTONE;
+    }
+
+    private static long meta(long lastAccess, int frequency) {
+        return lastAccess << 8 | frequency;
+    }
+
+    private static long lastAccess(long meta) {
+        return meta >>> 8;
+    }
+
+    /**
+     * Eviction order: frequency first, then last access. Millisecond timestamps fit
+     * in 47 bits for a few thousand years.
+     */
+    private static long rank(long meta) {
+        return (meta & 0xFF) << 47 | lastAccess(meta);
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        final int keyWidth;
+        final AtomicInteger cacheSize;
+        volatile Table table;
+        int live; // entries, guarded by the write lock
+        int used; // entries plus tombstones
+
+        Segment(int keyWidth, AtomicInteger cacheSize) {
+            this.keyWidth = keyWidth;
+            this.cacheSize = cacheSize;
+            this.table = new Table(MIN_CAPACITY, keyWidth);
+        }
+
+        /**
+         * Insert or replace. Returns true if the key is new.
+         */
+        boolean put(long k1, long k2, long h, Object value, long expiresAt, long meta) {
+            int slot = find(table, keyWidth, k1, k2, h);
+            if (slot >= 0) {
+                Table t = table;
+                t.values[slot] = value;
+                t.expiresAt[slot] = expiresAt;
+                t.meta[slot] = meta;
+                return false;
+            }
+            if (used + 1 > table.values.length / 4 * 3) {
+                // Grow if mostly live, otherwise just clear out tombstones
+                rehash(live + 1 > table.values.length / 2 ? table.values.length * 2 : table.values.length);
+            }
+            Table t = table;
+            int mask = t.values.length - 1;
+            slot = (int) h & mask;
+            while (isLive(t.values[slot])) {
+                slot = (slot + 1) & mask;
+            }
+            if (t.values[slot] == null) {
+                used++;
+            }
+            t.keys[slot * keyWidth] = k1;
+            if (keyWidth == 2) {
+                t.keys[slot * keyWidth + 1] = k2;
+            }
+            t.expiresAt[slot] = expiresAt;
+            t.meta[slot] = meta;
+            t.values[slot] = value;
+            live++;
+            return true;
+        }
+
+        void remove(int slot) {
+            Table t = table;
+            int mask = t.values.length - 1;
+            // A tombstone just before an empty slot ends no probe chain, so it can go
+            if (t.values[(slot + 1) & mask] == null) {
+                t.values[slot] = null;
+                used--;
+            } else {
+                t.values[slot] = TOMBSTONE;
+            }
+            live--;
+            cacheSize.decrementAndGet();
+        }
+
+        void reset(int capacity) {
+            table = new Table(capacity, keyWidth);
+            live = 0;
+            used = 0;
+        }
+
+        /**
+         * Copy live entries into a fresh table; readers holding the old one fail
+         * validation and retry.
+         */
+        private void rehash(int capacity) {
+            Table old = table;
+            Table t = new Table(capacity, keyWidth);
+            int mask = capacity - 1;
+            for (int from = 0; from < old.values.length; from++) {
+                if (!isLive(old.values[from])) {
+                    continue;
+                }
+                long k1 = old.keys[from * keyWidth];
+                long k2 = keyWidth == 2 ? old.keys[from * keyWidth + 1] : 0;
+                int slot = (int) hash(k1, k2) & mask;
+                while (t.values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(old.keys, from * keyWidth, t.keys, slot * keyWidth, keyWidth);
+                t.expiresAt[slot] = old.expiresAt[from];
+                t.meta[slot] = old.meta[from];
+                t.values[slot] = old.values[from];
+            }
+            table = t;
+            used = live;
+        }
+    }
+
+    private static final class Table {
+        final long[] keys; // keyWidth longs per slot
+        final long[] expiresAt;
+        final long[] meta; // last access (ms) << 8 | frequency
+        final Object[] values; // null = empty, TOMBSTONE = removed
+
+        Table(int capacity, int keyWidth) {
+            this.keys = new long[capacity * keyWidth];
+            this.expiresAt = new long[capacity];
+            this.meta = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.runbad.bridge.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded concurrent cache with a per-entry TTL.
+ *
+ * Reads are lock-free. When the cache grows past its limit, expired entries are
+ * dropped first, then the least frequently used ones (ties broken by recency),
+ * down to 90% of capacity. Access counts are halved once the cache has served
+ * maxSize hits since the last halving, so entries that were popular long ago age out
+ * while a burst of one-off keys can't flush the hot set. Expired entries that are never read again are
+ * removed by {@link #sweep()}, which the plugin runs periodically.
+ */
+public class TtlCache<K, V> implements BoundedCache {
+
+    private static final int MAX_FREQUENCY = 255;
+
+    private final Map<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long hitsAtLastAging;
+
+    public TtlCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Returns the cached value, or null if absent or expired.
+     */
+    public V get(K key) {
+        Entry<V> entry = map.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null) {
+            misses.increment();
+            CacheOutcome.record(false);
+            return null;
+        }
+        if (now >= entry.expiresAt) {
+            if (map.remove(key, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            CacheOutcome.record(false);
+            return null;
+        }
+        entry.lastAccess = now;
+        if (entry.frequency < MAX_FREQUENCY) {
+            entry.frequency++; // racy by design, an approximate count is enough
+        }
+        hits.increment();
+        CacheOutcome.record(true);
+        return entry.value;
+    }
+
+    /**
+     * Cache a value for ttlMs milliseconds. A non-positive TTL is a no-op.
+     */
+    public void put(K key, V value, long ttlMs) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        map.put(key, new Entry<>(value, now + ttlMs, now));
+        if (map.size() > maxSize) {
+            trim();
+        }
+    }
+
+    /**
+     * Whether an unexpired value is cached. Unlike get, not counted as a hit or miss.
+     */
+    public boolean contains(K key) {
+        Entry<V> entry = map.get(key);
+        return entry != null && System.currentTimeMillis() < entry.expiresAt;
+    }
+
+    public void invalidate(K key) {
+        map.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public int sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+            if (now >= e.getValue().expiresAt && map.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        expirations.add(removed);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private synchronized void trim() {
+        if (map.size() <= maxSize) {
+            return; // another thread already trimmed
+        }
+
+        long now = System.currentTimeMillis();
+        List<Candidate<K, V>> live = new ArrayList<>(map.size());
+        for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+            Entry<V> entry = e.getValue();
+            if (now >= entry.expiresAt) {
+                if (map.remove(e.getKey(), entry)) {
+                    expirations.increment();
+                }
+            } else {
+                // Snapshot the counters so concurrent reads can't reorder the sort
+                live.add(new Candidate<>(e.getKey(), entry, entry.frequency, entry.lastAccess));
+            }
+        }
+
+        int target = maxSize - maxSize / 10;
+        if (live.size() > target) {
+            live.sort(Comparator.<Candidate<K, V>>comparingInt(c -> c.frequency)
+                    .thenComparingLong(c -> c.lastAccess));
+            int excess = live.size() - target;
+            for (int i = 0; i < excess; i++) {
+                Candidate<K, V> c = live.get(i);
+                if (map.remove(c.key, c.entry)) {
+                    evictions.increment();
+                }
+            }
+            live = live.subList(excess, live.size());
+        }
+
+        // Age the survivors
+        long totalHits = hits.sum();
+        if (totalHits - hitsAtLastAging >= maxSize) {
+            hitsAtLastAging = totalHits;
+            for (Candidate<K, V> c : live) {
+                c.entry.frequency = c.frequency >>> 1;
+            }
+        }
+    }
+
+    private static class Candidate<K, V> {
+        final K key;
+        final Entry<V> entry;
+        final int frequency;
+        final long lastAccess;
+
+        Candidate(K key, Entry<V> entry, int frequency, long lastAccess) {
+            this.key = key;
+            this.entry = entry;
+            this.frequency = frequency;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+        volatile long lastAccess;
+        volatile int frequency;
+
+        Entry(V value, long expiresAt, long lastAccess) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
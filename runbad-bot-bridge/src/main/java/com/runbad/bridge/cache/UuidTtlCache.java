@@ -0,0 +1,52 @@
+package com.runbad.bridge.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded TTL cache keyed by a UUID, stored as its two longs. See {@link PrimitiveTtlCache}.
+ */
+public class UuidTtlCache<V> extends PrimitiveTtlCache<V> {
+
+    public UuidTtlCache(int maxSize) {
+        super(maxSize, 2);
+    }
+
+    /**
+     * Returns the cached value, or null if absent or expired.
+     */
+    public V get(UUID key) {
+        return getEntry(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Cache a value for ttlMs milliseconds. A non-positive TTL is a no-op.
+     */
+    public void put(UUID key, V value, long ttlMs) {
+        putEntry(key.getMostSignificantBits(), key.getLeastSignificantBits(), value, ttlMs);
+    }
+
+    /**
+     * Whether an unexpired value is cached, without counting a hit or miss.
+     */
+    public boolean contains(UUID key) {
+        return containsEntry(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    public void invalidate(UUID key) {
+        removeEntry(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Up to max unexpired keys, most recently used first.
+     */
+    public List<UUID> recentUuids(int max) {
+        long[] keys = recentEntries(max);
+        List<UUID> uuids = new ArrayList<>(keys.length / 2);
+        for (int i = 0; i < keys.length; i += 2) {
+            uuids.add(new UUID(keys[i], keys[i + 1]));
+        }
+        return uuids;
+    }
+}
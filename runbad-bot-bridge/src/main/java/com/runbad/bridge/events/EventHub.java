@@ -0,0 +1,230 @@
+package com.runbad.bridge.events;
+
+import com.runbad.bridge.api.JsonResponseWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of bridge events (votes, links) to streaming subscribers.
+ *
+ * Every event gets a sequence number and is encoded to JSON once at publish time.
+ * The last history-size events are kept so a reconnecting client can resume after
+ * the last sequence it saw. Sequences increase across restarts but are not
+ * contiguous between them. Each subscriber has a bounded queue; a subscriber that
+ * falls that far behind is disconnected and resumes from history on reconnect.
+ */
+public class EventHub {
+
+    private final BridgeEvent[] history;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final long firstSequence;
+    private long sequence;
+    private volatile boolean closed;
+
+    public EventHub(int historySize, int subscriberBuffer, int maxSubscribers) {
+        this.history = new BridgeEvent[Math.max(1, historySize)];
+        this.subscriberBuffer = Math.max(1, subscriberBuffer);
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        // Start from the clock so sequences keep increasing across restarts and a
+        // cursor from before a restart is recognised as a gap
+        this.sequence = System.currentTimeMillis() * 1000;
+        this.firstSequence = sequence + 1;
+    }
+
+    /**
+     * Publish an event. Never blocks on subscribers, so it is safe to call from
+     * the main thread or DiscordSRV's event threads.
+     */
+    public void publish(String type, JsonResponseWriter.Body data) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            long seq = ++sequence;
+            long time = System.currentTimeMillis() / 1000;
+            BridgeEvent event = new BridgeEvent(seq, type, encode(seq, type, time, data));
+            history[(int) (seq % history.length)] = event;
+            // Under the lock so a subscriber joining now sees each event exactly once
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+        published.incrementAndGet();
+    }
+
+    /**
+     * Register a subscriber that first receives the events after lastSeenSeq still
+     * in history. A lastSeenSeq below 0 means live events only.
+     * Returns null when max-subscribers are already connected.
+     */
+    public Subscriber subscribe(long lastSeenSeq) {
+        if (closed) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber();
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                return null;
+            }
+            if (lastSeenSeq >= 0 && lastSeenSeq != sequence) {
+                long oldest = Math.max(firstSequence, sequence - history.length + 1);
+                long first = lastSeenSeq + 1;
+                if (lastSeenSeq > sequence || first < oldest) {
+                    // Events were lost (or the cursor is from another run); the client
+                    // has to resync by polling
+                    subscriber.resetFrom = lastSeenSeq;
+                    first = oldest;
+                }
+                if (sequence - first + 1 > subscriberBuffer) {
+                    first = sequence - subscriberBuffer + 1;
+                    subscriber.resetFrom = lastSeenSeq;
+                }
+                for (long seq = first; seq <= sequence; seq++) {
+                    subscriber.offer(history[(int) (seq % history.length)]);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    /**
+     * Disconnect all subscribers and stop accepting events.
+     */
+    public void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    private static byte[] encode(long seq, String type, long time, JsonResponseWriter.Body data) {
+        try {
+            return JsonResponseWriter.encode(out -> {
+                out.beginObject()
+                    .name("seq").value(seq)
+                    .name("type").value(type)
+                    .name("time").value(time)
+                    .name("data");
+                data.write(out);
+                out.endObject();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class BridgeEvent {
+        public final long seq;
+        public final String type;
+        /** The encoded event: {"seq":..,"type":..,"time":..,"data":{..}} */
+        public final byte[] json;
+
+        BridgeEvent(long seq, String type, byte[] json) {
+            this.seq = seq;
+            this.type = type;
+            this.json = json;
+        }
+
+        @Override
+        public String toString() {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * One connected stream. Events are taken by the handler thread serving it.
+     */
+    public class Subscriber {
+        private static final long CLOSED_MARKER_SEQ = -1;
+
+        private final BlockingQueue<BridgeEvent> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private volatile boolean overflowed;
+        private volatile boolean done;
+        private long resetFrom = -1;
+
+        private void offer(BridgeEvent event) {
+            if (done) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Too slow: drop the subscriber rather than buffer without bound
+                overflowed = true;
+                overflows.incrementAndGet();
+                close();
+            }
+        }
+
+        /**
+         * Next event, or null if none arrived within the timeout or the stream is over.
+         */
+        public BridgeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            if (done && queue.isEmpty()) {
+                return null;
+            }
+            BridgeEvent event = queue.poll(timeout, unit);
+            return event == null || event.seq == CLOSED_MARKER_SEQ ? null : event;
+        }
+
+        /**
+         * True once the subscriber was dropped (overflow or shutdown) and should disconnect.
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        public boolean isOverflowed() {
+            return overflowed;
+        }
+
+        /**
+         * The lastSeenSeq the client asked to resume from if events after it are
+         * no longer available, otherwise -1.
+         */
+        public long getResetFrom() {
+            return resetFrom;
+        }
+
+        public void close() {
+            if (done) {
+                return;
+            }
+            done = true;
+            subscribers.remove(this);
+            // Wake a waiting poll; an overflowing queue is full, so drop one to make room
+            BridgeEvent marker = new BridgeEvent(CLOSED_MARKER_SEQ, "closed", new byte[0]);
+            if (!queue.offer(marker)) {
+                queue.clear();
+                queue.offer(marker);
+            }
+        }
+    }
+}
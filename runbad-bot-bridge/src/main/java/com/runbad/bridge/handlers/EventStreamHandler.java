@@ -0,0 +1,138 @@
+package com.runbad.bridge.handlers;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.RateLimiter;
+import com.runbad.bridge.events.EventHub;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GET /v1/events[?format=sse|ndjson][&since=SEQ]
+ * Streams vote and link events as they happen.
+ *
+ * Server-Sent Events by default (id = sequence, event = type); NDJSON with
+ * format=ndjson or Accept: application/x-ndjson. A reconnecting client passes the
+ * last sequence it saw as Last-Event-ID or since= to receive what it missed.
+ * If those events are gone, a "reset" event tells it to resync by polling.
+ */
+public class EventStreamHandler extends BaseHandler {
+
+    private static final byte[] SSE_PING = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NDJSON_PING = "\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final EventHub hub;
+    private final long heartbeatMs;
+    private final int maxStreams;
+    private final AtomicInteger streams = new AtomicInteger();
+
+    public EventStreamHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter,
+                              EventHub hub, int maxStreams) {
+        super(plugin, token, rateLimiter);
+        this.hub = hub;
+        this.maxStreams = maxStreams;
+        this.heartbeatMs = Math.max(1, plugin.getConfig().getLong("events.heartbeat-seconds", 15)) * 1000L;
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        String format = getQueryParam(exchange, "format");
+        if (format == null) {
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            format = accept != null && accept.contains("application/x-ndjson") ? "ndjson" : "sse";
+        }
+        if (!format.equals("sse") && !format.equals("ndjson")) {
+            sendError(exchange, 400, "Invalid format (sse or ndjson)");
+            return;
+        }
+        boolean sse = format.equals("sse");
+
+        String cursor = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (cursor == null) {
+            cursor = getQueryParam(exchange, "since");
+        }
+        long lastSeen = -1;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                lastSeen = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid event cursor");
+                return;
+            }
+        }
+
+        // Each stream holds a request thread, so cap them below the request pool
+        if (streams.incrementAndGet() > maxStreams) {
+            streams.decrementAndGet();
+            sendError(exchange, 503, "Too many event subscribers");
+            return;
+        }
+        EventHub.Subscriber subscriber = hub.subscribe(lastSeen);
+        if (subscriber == null) {
+            streams.decrementAndGet();
+            sendError(exchange, 503, "Too many event subscribers");
+            return;
+        }
+
+        try {
+            exchange.getResponseHeaders().set("Content-Type",
+                    sse ? "text/event-stream; charset=utf-8" : "application/x-ndjson; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0); // chunked, open until the client leaves
+
+            OutputStream os = exchange.getResponseBody();
+            if (subscriber.getResetFrom() >= 0) {
+                writeReset(os, sse, subscriber.getResetFrom(), hub.getSequence());
+            }
+            os.flush();
+
+            while (!subscriber.isDone()) {
+                EventHub.BridgeEvent event = subscriber.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    // Heartbeat keeps proxies open and surfaces dead clients as write errors
+                    os.write(sse ? SSE_PING : NDJSON_PING);
+                } else {
+                    writeEvent(os, sse, event);
+                }
+                os.flush();
+            }
+            os.close();
+        } catch (IOException e) {
+            // Client went away
+            exchange.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } finally {
+            subscriber.close();
+            streams.decrementAndGet();
+        }
+    }
+
+    private static void writeEvent(OutputStream os, boolean sse, EventHub.BridgeEvent event) throws IOException {
+        if (sse) {
+            os.write(("id: " + event.seq + "\nevent: " + event.type + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+            os.write(event.json);
+            os.write('\n');
+            os.write('\n');
+        } else {
+            os.write(event.json);
+            os.write('\n');
+        }
+    }
+
+    private static void writeReset(OutputStream os, boolean sse, long requested, long current) throws IOException {
+        String json = "{\"seq\":" + current + ",\"type\":\"reset\",\"time\":" + System.currentTimeMillis() / 1000
+                + ",\"data\":{\"requested\":" + requested + "}}";
+        if (sse) {
+            os.write(("id: " + current + "\nevent: reset\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8));
+        } else {
+            os.write((json + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
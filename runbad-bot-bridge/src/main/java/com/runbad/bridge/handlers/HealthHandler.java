@@ -1,25 +1,22 @@
 package com.runbad.bridge.handlers;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.integrations.CacheWarmer;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * Health check endpoint - no auth required.
  * GET /health
+ * "status" is "warming" while startup work (leaderboard loading, cache warm-up)
+ * is still running in the background, then "ready".
  */
 public class HealthHandler implements HttpHandler {
 
-    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
     private final RunbadBotBridge plugin;
 
     public HealthHandler(RunbadBotBridge plugin) {
@@ -29,35 +26,32 @@ public class HealthHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
-            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            try (JsonResponseWriter out = new JsonResponseWriter(exchange, 405)) {
+                out.beginObject().name("error").value("Method not allowed").endObject();
+            }
             return;
         }
 
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("ok", true);
-        response.put("timestamp", Instant.now().toString());
-
-        Map<String, Object> versions = new LinkedHashMap<>();
-        versions.put("bridge", plugin.getDescription().getVersion());
-        versions.put("server", plugin.getServer().getVersion());
-        response.put("versions", versions);
-
-        Map<String, Boolean> integrations = new LinkedHashMap<>();
-        integrations.put("discordsrv", plugin.getDiscordSrv().isAvailable());
-        integrations.put("votingplugin", plugin.getVotePlugin().isAvailable());
-        integrations.put("placeholderapi", plugin.getPlaceholderApi().isAvailable());
-        response.put("integrations", integrations);
-
-        sendJson(exchange, 200, response);
-    }
-
-    private void sendJson(HttpExchange exchange, int statusCode, Object data) throws IOException {
-        String json = GSON.toJson(data);
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
-        exchange.sendResponseHeaders(statusCode, bytes.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(bytes);
+        CacheWarmer warmer = plugin.getCacheWarmer();
+        try (JsonResponseWriter out = new JsonResponseWriter(exchange, 200)) {
+            out.beginObject()
+                .name("ok").value(true)
+                .name("status").value(plugin.isWarming() ? "warming" : "ready")
+                .name("warmup").beginObject()
+                    .name("done").value(warmer != null ? warmer.getDone() : 0)
+                    .name("total").value(warmer != null ? warmer.getTotal() : 0)
+                .endObject()
+                .name("timestamp").value(Instant.now().toString())
+                .name("versions").beginObject()
+                    .name("bridge").value(plugin.getDescription().getVersion())
+                    .name("server").value(plugin.getServer().getVersion())
+                .endObject()
+                .name("integrations").beginObject()
+                    .name("discordsrv").value(plugin.getDiscordSrv().isAvailable())
+                    .name("votingplugin").value(plugin.getVotePlugin().isAvailable())
+                    .name("placeholderapi").value(plugin.getPlaceholderApi().isAvailable())
+                .endObject()
+                .endObject();
         }
     }
 }
@@ -0,0 +1,141 @@
+package com.runbad.bridge.handlers;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.ETags;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.api.RateLimiter;
+import com.runbad.bridge.api.RequestParser;
+import com.runbad.bridge.leaderboard.Leaderboard;
+import com.runbad.bridge.leaderboard.LeaderboardManager;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * GET /v1/leaderboard
+ * Lists the configured leaderboards.
+ *
+ * GET /v1/leaderboard/{id}?limit=10[&uuid=...]
+ * Returns the top entries of a leaderboard and, with uuid, that player's rank.
+ * Served from the sampled index; no placeholders are evaluated.
+ */
+public class LeaderboardHandler extends BaseHandler {
+
+    private static final String PREFIX = "/v1/leaderboard";
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final LeaderboardManager leaderboards;
+
+    public LeaderboardHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter,
+                              LeaderboardManager leaderboards) {
+        super(plugin, token, rateLimiter);
+        this.leaderboards = leaderboards;
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String rest = path.length() > PREFIX.length() ? path.substring(PREFIX.length()) : "";
+
+        if (rest.isEmpty() || rest.equals("/")) {
+            writeBoards(exchange);
+            return;
+        }
+        if (rest.charAt(0) != '/' || rest.indexOf('/', 1) != -1) {
+            sendError(exchange, 404, "Not found");
+            return;
+        }
+
+        Leaderboard board = leaderboards.getBoard(rest.substring(1));
+        if (board == null) {
+            sendError(exchange, 404, "Unknown leaderboard");
+            return;
+        }
+
+        int limit = DEFAULT_LIMIT;
+        String limitParam = getQueryParam(exchange, "limit");
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit < 1 || limit > leaderboards.getMaxLimit()) {
+                sendError(exchange, 400, "Invalid limit (1-" + leaderboards.getMaxLimit() + ")");
+                return;
+            }
+        }
+
+        String uuidParam = getQueryParam(exchange, "uuid");
+        UUID uuid = RequestParser.parseUuid(uuidParam);
+        if (uuidParam != null && uuid == null) {
+            sendError(exchange, 400, "Invalid uuid format");
+            return;
+        }
+
+        Leaderboard.Page page = board.query(limit, uuid);
+
+        // The board's version changes with every score change, so it tags the response
+        String etag = ETags.weak(new ETags.Hasher()
+                .add(board.getId())
+                .add(page.version)
+                .add(limit)
+                .add(uuidParam));
+        if (sendNotModifiedIfMatch(exchange, etag)) {
+            return;
+        }
+
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("id").value(board.getId())
+                .name("order").value(board.isDescending() ? "desc" : "asc")
+                .name("size").value(page.size)
+                .name("updatedAt").value(page.updatedAt)
+                .name("entries")
+                .beginArray();
+            for (Leaderboard.Entry entry : page.top) {
+                writeEntry(out, entry);
+            }
+            out.endArray();
+            if (uuid != null) {
+                out.name("player");
+                if (page.player != null) {
+                    writeEntry(out, page.player);
+                } else {
+                    out.nullValue();
+                }
+            }
+            out.endObject();
+        }
+    }
+
+    private void writeBoards(HttpExchange exchange) throws IOException {
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("leaderboards")
+                .beginArray();
+            for (Leaderboard board : leaderboards.getBoards()) {
+                out.beginObject()
+                    .name("id").value(board.getId())
+                    .name("placeholder").value(board.getPlaceholder())
+                    .name("order").value(board.isDescending() ? "desc" : "asc")
+                    .name("size").value(board.size())
+                    .endObject();
+            }
+            out.endArray()
+                .endObject();
+        }
+    }
+
+    private static void writeEntry(JsonResponseWriter out, Leaderboard.Entry entry) throws IOException {
+        out.beginObject()
+            .name("rank").value(entry.rank)
+            .name("uuid").value(entry.uuid.toString())
+            .name("name").value(entry.name)
+            .name("score").value(entry.score)
+            .name("display").value(entry.display)
+            .endObject();
+    }
+}
@@ -0,0 +1,87 @@
+package com.runbad.bridge.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.api.RateLimiter;
+import com.runbad.bridge.integrations.DiscordSrvIntegration;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * POST /v1/link/resolve-batch
+ * Body: { "discord_ids": ["123456789", ...] }
+ * Returns: { "results": { "123456789": { "linked": true, "uuid": "...", "name": "..." }, ... } }
+ */
+public class LinkResolveBatchHandler extends BaseHandler {
+
+    private static final int MAX_IDS = 100;
+
+    public LinkResolveBatchHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
+    }
+
+    @Override
+    protected String getRequiredMethod() {
+        return "POST";
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange);
+
+        JsonObject json;
+        try {
+            json = JsonParser.parseString(body).getAsJsonObject();
+        } catch (Exception e) {
+            sendError(exchange, 400, "Invalid JSON body");
+            return;
+        }
+
+        if (!json.has("discord_ids") || !json.get("discord_ids").isJsonArray()) {
+            sendError(exchange, 400, "Missing required field: discord_ids (array)");
+            return;
+        }
+        JsonArray idArray = json.getAsJsonArray("discord_ids");
+        if (idArray.size() == 0) {
+            sendError(exchange, 400, "discord_ids array is empty");
+            return;
+        }
+        if (idArray.size() > MAX_IDS) {
+            sendError(exchange, 400, "Too many discord_ids (max " + MAX_IDS + ")");
+            return;
+        }
+
+        Set<String> discordIds = new LinkedHashSet<>();
+        for (JsonElement el : idArray) {
+            String id = el.isJsonPrimitive() ? el.getAsString() : null;
+            if (!isValidDiscordId(id)) {
+                sendError(exchange, 400, "Invalid discord_id format: " + el);
+                return;
+            }
+            discordIds.add(id);
+        }
+
+        if (!plugin.getDiscordSrv().isAvailable()) {
+            sendError(exchange, 503, "DiscordSRV integration unavailable");
+            return;
+        }
+
+        Map<String, DiscordSrvIntegration.LinkResult> resolved = plugin.getDiscordSrv().resolveAll(discordIds);
+
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject().name("results").beginObject();
+            for (Map.Entry<String, DiscordSrvIntegration.LinkResult> entry : resolved.entrySet()) {
+                out.name(entry.getKey());
+                LinkResolveHandler.writeLink(out, entry.getValue());
+            }
+            out.endObject().endObject();
+        }
+    }
+}
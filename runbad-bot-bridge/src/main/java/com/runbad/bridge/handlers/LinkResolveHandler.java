@@ -2,13 +2,13 @@ package com.runbad.bridge.handlers;
 
 import com.runbad.bridge.RunbadBotBridge;
 import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.ETags;
+import com.runbad.bridge.api.JsonResponseWriter;
 import com.runbad.bridge.api.RateLimiter;
 import com.runbad.bridge.integrations.DiscordSrvIntegration;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * GET /v1/link/resolve?discord_id=123456789
@@ -16,8 +16,8 @@ import java.util.Map;
  */
 public class LinkResolveHandler extends BaseHandler {
 
-    public LinkResolveHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter, boolean logRequests) {
-        super(plugin, token, rateLimiter, logRequests);
+    public LinkResolveHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
     }
 
     @Override
@@ -40,19 +40,41 @@ public class LinkResolveHandler extends BaseHandler {
         }
 
         DiscordSrvIntegration.LinkResult result = plugin.getDiscordSrv().resolve(discordId);
+        if (result == null) {
+            try (JsonResponseWriter out = openJson(exchange, 200)) {
+                writeLink(out, null);
+            }
+            return;
+        }
+
+        // Cached results carry their encoded body
+        byte[] body = result.getJson();
+        if (body == null) {
+            body = JsonResponseWriter.encode(out -> writeLink(out, result));
+            result.setJson(body);
+        }
 
-        Map<String, Object> response = new LinkedHashMap<>();
+        if (sendNotModifiedIfMatch(exchange, ETags.strong(body))) {
+            return;
+        }
+        sendJsonBytes(exchange, 200, body);
+    }
+
+    /**
+     * Write a link result object; a null result means the lookup failed.
+     */
+    static void writeLink(JsonResponseWriter out, DiscordSrvIntegration.LinkResult result) throws IOException {
+        out.beginObject();
         if (result == null) {
-            response.put("linked", false);
-            response.put("uuid", null);
-            response.put("name", null);
-            response.put("error", "Failed to query DiscordSRV");
+            out.name("linked").value(false)
+                .name("uuid").nullValue()
+                .name("name").nullValue()
+                .name("error").value("Failed to query DiscordSRV");
         } else {
-            response.put("linked", result.linked);
-            response.put("uuid", result.uuid);
-            response.put("name", result.name);
+            out.name("linked").value(result.linked)
+                .name("uuid").value(result.uuid)
+                .name("name").value(result.name);
         }
-
-        sendJson(exchange, 200, response);
+        out.endObject();
     }
 }
@@ -0,0 +1,57 @@
+package com.runbad.bridge.handlers;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.api.RateLimiter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * GET /v1/link/reverse?uuid=...
+ * Returns the Discord user linked to a Minecraft account.
+ */
+public class LinkReverseHandler extends BaseHandler {
+
+    public LinkReverseHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        String uuid = getQueryParam(exchange, "uuid");
+
+        if (uuid == null || uuid.isEmpty()) {
+            sendError(exchange, 400, "Missing required parameter: uuid");
+            return;
+        }
+
+        if (!isValidUuid(uuid)) {
+            sendError(exchange, 400, "Invalid uuid format");
+            return;
+        }
+
+        if (!plugin.getDiscordSrv().isAvailable()) {
+            sendError(exchange, 503, "DiscordSRV integration unavailable");
+            return;
+        }
+
+        String discordId;
+        try {
+            discordId = plugin.getDiscordSrv().lookupDiscordId(uuid);
+        } catch (IllegalStateException e) {
+            // Not "linked": false, which the bot would cache
+            sendError(exchange, 500, "Failed to query DiscordSRV");
+            return;
+        }
+
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("linked").value(discordId != null)
+                .name("uuid").value(uuid)
+                .name("discord_id").value(discordId)
+                .endObject();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.runbad.bridge.handlers;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.RateLimiter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GET /metrics
+ * Request, cache, rate limiter, integration and executor metrics in Prometheus
+ * text format. Needs the API token like every other endpoint.
+ */
+public class MetricsHandler extends BaseHandler {
+
+    public MetricsHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        byte[] body = plugin.getMetrics().scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.runbad.bridge.RunbadBotBridge;
 import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.JsonResponseWriter;
 import com.runbad.bridge.api.RateLimiter;
 import com.sun.net.httpserver.HttpExchange;
 
@@ -19,8 +20,8 @@ import java.util.*;
  */
 public class PlaceholderEvalHandler extends BaseHandler {
 
-    public PlaceholderEvalHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter, boolean logRequests) {
-        super(plugin, token, rateLimiter, logRequests);
+    public PlaceholderEvalHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
     }
 
     @Override
@@ -78,10 +79,11 @@ public class PlaceholderEvalHandler extends BaseHandler {
 
         Map<String, String> values = plugin.getPlaceholderApi().evaluate(uuid, placeholders);
 
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("uuid", uuid);
-        response.put("values", values);
-
-        sendJson(exchange, 200, response);
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("uuid").value(uuid)
+                .name("values").value(values)
+                .endObject();
+        }
     }
 }
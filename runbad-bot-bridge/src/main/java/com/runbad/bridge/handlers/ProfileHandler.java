@@ -0,0 +1,279 @@
+package com.runbad.bridge.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.api.RateLimiter;
+import com.runbad.bridge.integrations.DiscordSrvIntegration;
+import com.runbad.bridge.integrations.VotePluginIntegration;
+import com.sun.net.httpserver.HttpExchange;
+import org.bukkit.Bukkit;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * POST /v1/profile
+ * Body: { "discord_id": "..." | "uuid": "...", "placeholders": [...], "vote": true }
+ * Returns link, vote status and placeholder values in one response.
+ *
+ * Once the UUID is known, the remaining integrations are queried concurrently. A
+ * section whose lookup fails, times out or whose plugin is unavailable is returned
+ * as { "error": "..." } and the rest of the profile is still sent.
+ */
+public class ProfileHandler extends BaseHandler {
+
+    private static final long LOOKUP_TIMEOUT_MS = 5000;
+
+    private final Executor lookupExecutor;
+
+    public ProfileHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter,
+                          Executor lookupExecutor) {
+        super(plugin, token, rateLimiter);
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    @Override
+    protected String getRequiredMethod() {
+        return "POST";
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange);
+
+        JsonObject json;
+        try {
+            json = JsonParser.parseString(body).getAsJsonObject();
+        } catch (Exception e) {
+            sendError(exchange, 400, "Invalid JSON body");
+            return;
+        }
+
+        if (!isStringOrNull(json.get("discord_id")) || !isStringOrNull(json.get("uuid"))) {
+            sendError(exchange, 400, "Fields discord_id and uuid must be strings");
+            return;
+        }
+        String discordId = getString(json, "discord_id");
+        String uuid = getString(json, "uuid");
+        if ((discordId == null) == (uuid == null)) {
+            sendError(exchange, 400, "Exactly one of discord_id or uuid is required");
+            return;
+        }
+        if (discordId != null && !isValidDiscordId(discordId)) {
+            sendError(exchange, 400, "Invalid discord_id format");
+            return;
+        }
+        if (uuid != null && !isValidUuid(uuid)) {
+            sendError(exchange, 400, "Invalid uuid format");
+            return;
+        }
+
+        // Placeholders are optional here
+        List<String> placeholders = new ArrayList<>();
+        if (json.has("placeholders") && !json.get("placeholders").isJsonNull()) {
+            if (!json.get("placeholders").isJsonArray()) {
+                sendError(exchange, 400, "Field placeholders must be an array");
+                return;
+            }
+            JsonArray phArray = json.getAsJsonArray("placeholders");
+            if (phArray.size() > 20) {
+                sendError(exchange, 400, "Too many placeholders (max 20)");
+                return;
+            }
+            for (JsonElement el : phArray) {
+                if (!isString(el)) {
+                    sendError(exchange, 400, "Field placeholders must be an array of strings");
+                    return;
+                }
+                placeholders.add(el.getAsString());
+            }
+        }
+
+        JsonElement voteField = json.get("vote");
+        if (voteField != null && !(voteField.isJsonPrimitive() && voteField.getAsJsonPrimitive().isBoolean())) {
+            sendError(exchange, 400, "Field vote must be a boolean");
+            return;
+        }
+        boolean includeVote = voteField == null || voteField.getAsBoolean();
+
+        if (discordId != null && !plugin.getDiscordSrv().isAvailable()) {
+            sendError(exchange, 503, "DiscordSRV integration unavailable");
+            return;
+        }
+
+        DiscordSrvIntegration.LinkResult link;
+        String linkedDiscordId = discordId;
+        Lookup<String> reverseLink = null;
+
+        if (discordId != null) {
+            // The UUID depends on the link, so this step is serial
+            link = plugin.getDiscordSrv().resolve(discordId);
+            if (link == null) {
+                sendError(exchange, 502, "Failed to query DiscordSRV");
+                return;
+            }
+
+            if (!link.linked) {
+                try (JsonResponseWriter out = openJson(exchange, 200)) {
+                    out.beginObject().name("uuid").nullValue().name("link");
+                    writeLink(out, link, discordId);
+                    out.name("queriedAt").value(System.currentTimeMillis() / 1000).endObject();
+                }
+                return;
+            }
+            uuid = link.uuid;
+        } else {
+            link = null;
+            String requestedUuid = uuid;
+            reverseLink = plugin.getDiscordSrv().isAvailable()
+                    ? new Lookup<>(() -> plugin.getDiscordSrv().lookupDiscordId(requestedUuid), lookupExecutor)
+                    : new Lookup<>();
+        }
+
+        // Fan out to the remaining integrations
+        String playerUuid = uuid;
+        Lookup<List<VotePluginIntegration.VoteSiteStatus>> vote = null;
+        if (includeVote) {
+            vote = plugin.getVotePlugin().isAvailable()
+                    ? new Lookup<>(() -> plugin.getVotePlugin().getVoteStatus(playerUuid), lookupExecutor)
+                    : new Lookup<>();
+        }
+        Lookup<Map<String, String>> values = null;
+        if (!placeholders.isEmpty()) {
+            values = plugin.getPlaceholderApi().isAvailable()
+                    ? new Lookup<>(() -> plugin.getPlaceholderApi().evaluate(playerUuid, placeholders), lookupExecutor)
+                    : new Lookup<>();
+        }
+
+        // Collect everything before the response is started. A lookup that fails or
+        // runs past the deadline only blanks its own section.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LOOKUP_TIMEOUT_MS);
+        if (reverseLink != null && reverseLink.await(deadline)) {
+            linkedDiscordId = reverseLink.value;
+            String name = Bukkit.getOfflinePlayer(UUID.fromString(uuid)).getName();
+            link = new DiscordSrvIntegration.LinkResult(linkedDiscordId != null, uuid, name != null ? name : uuid);
+        }
+        if (vote != null) {
+            vote.await(deadline);
+        }
+        if (values != null) {
+            values.await(deadline);
+        }
+
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("uuid").value(uuid)
+                .name("link");
+            if (link == null) {
+                writeError(out, reverseLink.error);
+            } else {
+                writeLink(out, link, linkedDiscordId);
+            }
+            if (vote != null) {
+                out.name("vote");
+                if (vote.error != null) {
+                    writeError(out, vote.error);
+                } else {
+                    out.beginObject().name("sites");
+                    VoteNextHandler.writeSites(out, vote.value);
+                    out.endObject();
+                }
+            }
+            if (values != null) {
+                out.name("values");
+                if (values.error != null) {
+                    writeError(out, values.error);
+                } else {
+                    out.value(values.value);
+                }
+            }
+            out.name("queriedAt").value(System.currentTimeMillis() / 1000)
+                .endObject();
+        }
+    }
+
+    private static void writeLink(JsonResponseWriter out, DiscordSrvIntegration.LinkResult link,
+                                  String discordId) throws IOException {
+        out.beginObject()
+            .name("linked").value(link.linked)
+            .name("uuid").value(link.uuid)
+            .name("name").value(link.name)
+            .name("discord_id").value(discordId)
+            .endObject();
+    }
+
+    private static void writeError(JsonResponseWriter out, String error) throws IOException {
+        out.beginObject().name("error").value(error).endObject();
+    }
+
+    private static boolean isString(JsonElement element) {
+        return element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+
+    private static boolean isStringOrNull(JsonElement element) {
+        return element == null || element.isJsonNull() || isString(element);
+    }
+
+    private static String getString(JsonObject json, String field) {
+        if (!json.has(field) || json.get(field).isJsonNull()) {
+            return null;
+        }
+        String value = json.get(field).getAsString();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * One section's lookup, run on the lookup executor. Holds either the value or
+     * why there isn't one: "unavailable", "failed" or "timeout".
+     */
+    private static final class Lookup<T> {
+        private final CompletableFuture<T> future;
+        private T value;
+        private String error;
+
+        Lookup(Supplier<T> supplier, Executor executor) {
+            this.future = CompletableFuture.supplyAsync(supplier, executor);
+        }
+
+        /**
+         * Not run, because the plugin behind it is unavailable.
+         */
+        Lookup() {
+            this.future = null;
+            this.error = "unavailable";
+        }
+
+        /**
+         * Wait for the result until deadline (System.nanoTime()); true if there is a value.
+         */
+        boolean await(long deadline) {
+            if (future == null) {
+                return false;
+            }
+            try {
+                value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "failed";
+            } catch (ExecutionException e) {
+                error = "failed"; // the integration has logged it
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                error = "timeout";
+            }
+            return false;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.runbad.bridge.handlers;
 
 import com.runbad.bridge.RunbadBotBridge;
 import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.ETags;
+import com.runbad.bridge.api.JsonResponseWriter;
 import com.runbad.bridge.api.RateLimiter;
 import com.runbad.bridge.integrations.VotePluginIntegration;
 import com.sun.net.httpserver.HttpExchange;
@@ -15,8 +17,8 @@ import java.util.*;
  */
 public class VoteNextHandler extends BaseHandler {
 
-    public VoteNextHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter, boolean logRequests) {
-        super(plugin, token, rateLimiter, logRequests);
+    public VoteNextHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
     }
 
     @Override
@@ -40,23 +42,48 @@ public class VoteNextHandler extends BaseHandler {
 
         List<VotePluginIntegration.VoteSiteStatus> sites = plugin.getVotePlugin().getVoteStatus(uuid);
 
-        List<Map<String, Object>> siteList = new ArrayList<>();
-        for (VotePluginIntegration.VoteSiteStatus site : sites) {
-            Map<String, Object> siteData = new LinkedHashMap<>();
-            siteData.put("siteName", site.siteName);
-            siteData.put("readyNow", site.readyNow);
-            siteData.put("nextVoteEpoch", site.nextVoteEpoch);
-            siteData.put("nextVoteISO", site.nextVoteISO);
-            siteData.put("remainingSeconds", site.remainingSeconds);
-            siteData.put("voteUrl", site.voteUrl);
-            siteList.add(siteData);
+        // Countdowns change every second, so the tag covers what they derive from
+        if (sendNotModifiedIfMatch(exchange, etagOf(uuid, sites))) {
+            return;
         }
 
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("uuid", uuid);
-        response.put("sites", siteList);
-        response.put("queriedAt", System.currentTimeMillis() / 1000);
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("uuid").value(uuid)
+                .name("sites");
+            writeSites(out, sites);
+            out.name("queriedAt").value(System.currentTimeMillis() / 1000)
+                .endObject();
+        }
+    }
+
+    /**
+     * Weak ETag over readiness and next-vote times. remainingSeconds and queriedAt are
+     * left out: they follow from nextVoteEpoch and the time of the request.
+     */
+    static String etagOf(String uuid, List<VotePluginIntegration.VoteSiteStatus> sites) {
+        ETags.Hasher hasher = new ETags.Hasher().add(uuid);
+        for (VotePluginIntegration.VoteSiteStatus site : sites) {
+            hasher.add(site.siteName)
+                .add(site.readyNow)
+                .add(site.nextVoteEpoch)
+                .add(site.voteUrl);
+        }
+        return ETags.weak(hasher);
+    }
 
-        sendJson(exchange, 200, response);
+    static void writeSites(JsonResponseWriter out, List<VotePluginIntegration.VoteSiteStatus> sites) throws IOException {
+        out.beginArray();
+        for (VotePluginIntegration.VoteSiteStatus site : sites) {
+            out.beginObject()
+                .name("siteName").value(site.siteName)
+                .name("readyNow").value(site.readyNow)
+                .name("nextVoteEpoch").value(site.nextVoteEpoch)
+                .name("nextVoteISO").value(site.nextVoteISO)
+                .name("remainingSeconds").value(site.remainingSeconds)
+                .name("voteUrl").value(site.voteUrl)
+                .endObject();
+        }
+        out.endArray();
     }
 }
@@ -0,0 +1,80 @@
+package com.runbad.bridge.handlers;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.BaseHandler;
+import com.runbad.bridge.api.JsonResponseWriter;
+import com.runbad.bridge.api.RateLimiter;
+import com.runbad.bridge.integrations.VoteReadyIndex;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * GET /v1/vote/ready?since=CURSOR[&limit=500]
+ * Returns the players whose vote cooldown on a site ended after the cursor.
+ * Without since, returns no entries and the current cursor to start from.
+ */
+public class VoteReadyHandler extends BaseHandler {
+
+    private final int maxLimit;
+
+    public VoteReadyHandler(RunbadBotBridge plugin, String token, RateLimiter rateLimiter) {
+        super(plugin, token, rateLimiter);
+        this.maxLimit = Math.max(1, plugin.getConfig().getInt("vote-ready.max-limit", 1000));
+    }
+
+    @Override
+    protected void handleAuthenticated(HttpExchange exchange) throws IOException {
+        if (!plugin.getVotePlugin().isAvailable()) {
+            sendError(exchange, 503, "VotingPlugin integration unavailable");
+            return;
+        }
+
+        int limit = maxLimit;
+        String limitParam = getQueryParam(exchange, "limit");
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit < 1 || limit > maxLimit) {
+                sendError(exchange, 400, "Invalid limit (1-" + maxLimit + ")");
+                return;
+            }
+        }
+
+        VoteReadyIndex index = plugin.getVotePlugin().getReadyIndex();
+        long cursor = index.getSequence();
+        String since = getQueryParam(exchange, "since");
+        if (since != null && !since.isEmpty()) {
+            try {
+                cursor = Long.parseLong(since);
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid cursor");
+                return;
+            }
+        }
+
+        VoteReadyIndex.Page page = index.since(cursor, limit);
+
+        try (JsonResponseWriter out = openJson(exchange, 200)) {
+            out.beginObject()
+                .name("cursor").value(page.cursor)
+                .name("reset").value(page.reset)
+                .name("more").value(page.more)
+                .name("ready")
+                .beginArray();
+            for (VoteReadyIndex.Ready ready : page.entries) {
+                out.beginObject()
+                    .name("uuid").value(ready.uuid.toString())
+                    .name("site").value(ready.site)
+                    .name("voteUrl").value(ready.voteUrl)
+                    .name("readyAt").value(ready.readyAtMs / 1000)
+                    .endObject();
+            }
+            out.endArray()
+                .endObject();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.RequestParser;
+import org.bukkit.Bukkit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refills the link and vote caches after a restart, so the bot's first requests
+ * don't all go to DiscordSRV and VotingPlugin at once.
+ *
+ * Warms the players online at startup (after a /reload) and the Discord ids and
+ * players most recently requested before the last shutdown, which are saved to
+ * warmup.txt. Runs on one background thread once the server is ticking, at no more
+ * than warmup.max-per-second lookups.
+ */
+public class CacheWarmer {
+
+    private static final int BATCH = 100;
+
+    private final RunbadBotBridge plugin;
+    private final boolean enabled;
+    private final int maxPerSecond;
+    private final int recentMax;
+    private final Path file;
+
+    private volatile boolean warming;
+    private volatile boolean stopped;
+    private volatile int total;
+    private final AtomicInteger done = new AtomicInteger();
+    private long nextAt;
+
+    public CacheWarmer(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("warmup.enabled", true);
+        this.maxPerSecond = Math.max(1, plugin.getConfig().getInt("warmup.max-per-second", 20));
+        this.recentMax = Math.max(0, plugin.getConfig().getInt("warmup.recent-max", 2000));
+        this.file = plugin.getDataFolder().toPath().resolve("warmup.txt");
+    }
+
+    /**
+     * Start warming in the background. Call from the main thread with the players
+     * online now.
+     */
+    public void start(Collection<UUID> onlinePlayers) {
+        if (!enabled) {
+            return;
+        }
+        List<UUID> online = new ArrayList<>(onlinePlayers);
+        warming = true;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long start = System.currentTimeMillis();
+            try {
+                warm(online);
+                plugin.getLogger().info("Warm-up: " + done.get() + " lookups in "
+                        + (System.currentTimeMillis() - start) + "ms.");
+            } catch (Exception e) {
+                plugin.getLogger().warning("Warm-up failed after " + done.get() + " lookups: " + e.getMessage());
+            } finally {
+                warming = false;
+            }
+        });
+    }
+
+    /**
+     * Stop warming and save the most recently requested ids for the next startup.
+     */
+    public void stop() {
+        stopped = true;
+        if (!enabled || recentMax == 0) {
+            return;
+        }
+        try {
+            saveRecent();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save warm-up list: " + e.getMessage());
+        }
+    }
+
+    public boolean isWarming() {
+        return warming;
+    }
+
+    /**
+     * Lookups done so far, out of {@link #getTotal()}.
+     */
+    public int getDone() {
+        return done.get();
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    private void warm(List<UUID> online) throws InterruptedException {
+        DiscordSrvIntegration discordSrv = plugin.getDiscordSrv();
+        VotePluginIntegration votePlugin = plugin.getVotePlugin();
+
+        Set<String> discordIds = new LinkedHashSet<>();
+        Set<UUID> players = new LinkedHashSet<>(online);
+        readRecent(discordIds, players);
+        total = (discordSrv.isAvailable() ? online.size() + discordIds.size() : 0)
+                + (votePlugin.isAvailable() ? players.size() : 0);
+        nextAt = System.nanoTime();
+
+        if (discordSrv.isAvailable()) {
+            // Online players' links, then everything requested recently, in bulk lookups
+            for (UUID uuid : online) {
+                if (!pace(1)) {
+                    return;
+                }
+                String discordId = discordSrv.getDiscordId(uuid.toString());
+                if (discordId != null && discordIds.add(discordId)) {
+                    total++;
+                }
+            }
+            List<String> batch = new ArrayList<>(BATCH);
+            for (String discordId : discordIds) {
+                batch.add(discordId);
+                if (batch.size() == BATCH) {
+                    if (!pace(batch.size())) {
+                        return;
+                    }
+                    discordSrv.resolveAll(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty() && pace(batch.size())) {
+                discordSrv.resolveAll(batch);
+            }
+        }
+
+        if (votePlugin.isAvailable()) {
+            for (UUID uuid : players) {
+                if (!pace(1)) {
+                    return;
+                }
+                votePlugin.getVoteStatus(uuid.toString());
+            }
+        }
+    }
+
+    /**
+     * Wait until this many more lookups fit within the rate; false if the warm-up was stopped.
+     */
+    private boolean pace(int lookups) throws InterruptedException {
+        if (stopped) {
+            return false;
+        }
+        long wait = nextAt - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        nextAt = Math.max(nextAt, System.nanoTime()) + lookups * 1_000_000_000L / maxPerSecond;
+        done.addAndGet(lookups);
+        return !stopped;
+    }
+
+    /**
+     * Read ids saved at the last shutdown; lines are "link SNOWFLAKE" or "vote UUID".
+     */
+    private void readRecent(Set<String> discordIds, Set<UUID> players) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.startsWith("link ") && RequestParser.parseSnowflake(line.substring(5)) > 0) {
+                    discordIds.add(line.substring(5));
+                } else if (line.startsWith("vote ")) {
+                    UUID uuid = RequestParser.parseUuid(line.substring(5));
+                    if (uuid != null) {
+                        players.add(uuid);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read warm-up list: " + e.getMessage());
+        }
+    }
+
+    private void saveRecent() throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("# Most recently requested first; read by the next startup's warm-up");
+            writer.newLine();
+            for (long discordId : plugin.getDiscordSrv().getCache().recentKeys(recentMax)) {
+                writer.write("link " + discordId);
+                writer.newLine();
+            }
+            for (UUID uuid : plugin.getVotePlugin().getCache().recentUuids(recentMax)) {
+                writer.write("vote " + uuid);
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,26 +1,58 @@
 package com.runbad.bridge.integrations;
 
 import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.api.RequestParser;
+import com.runbad.bridge.cache.KeyGenerations;
+import com.runbad.bridge.cache.LongTtlCache;
+import com.runbad.bridge.cache.SingleFlight;
+import com.runbad.bridge.metrics.Histogram;
 import github.scarsz.discordsrv.DiscordSRV;
 import github.scarsz.discordsrv.util.DiscordUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
 
 public class DiscordSrvIntegration {
 
     private final RunbadBotBridge plugin;
     private final boolean available;
 
-    // Simple TTL cache for link lookups
-    private final Map<String, CachedLink> linkCache = new ConcurrentHashMap<>();
+    // Every "not linked" result is the same, so they share one instance (and its encoded body)
+    private static final LinkResult NOT_LINKED = new LinkResult(false, null, null);
+
+    // Bounded TTL cache for link lookups keyed by snowflake; "not linked" results use their own TTL
+    private final LongTtlCache<LinkResult> linkCache;
+    private final long linkTtlMs;
+    private final long negativeTtlMs;
+    private final SingleFlight<String, LinkResult> lookups = new SingleFlight<>();
+    // Bumped by link events, so a lookup that read before the event doesn't cache what it read
+    private final KeyGenerations generations = new KeyGenerations();
+
+    // Mirror of every link, so "not linked" needs no DiscordSRV call; null when disabled or unavailable
+    private volatile LinkIndex linkIndex;
+    private BukkitTask linkIndexSync;
+
+    // Time spent in DiscordSRV's link manager (its database, for JDBC storage)
+    private final Histogram getUuidTime;
+    private final Histogram getUuidsTime;
+    private final Histogram getDiscordIdTime;
+    private final Histogram getLinkedAccountsTime;
 
     public DiscordSrvIntegration(RunbadBotBridge plugin) {
         this.plugin = plugin;
         this.available = Bukkit.getPluginManager().isPluginEnabled("DiscordSRV");
+        this.linkCache = new LongTtlCache<>(plugin.getConfig().getInt("cache.link-max-entries", 50000));
+        this.linkTtlMs = plugin.getConfig().getLong("cache.link-ttl", 3600) * 1000L;
+        this.negativeTtlMs = plugin.getConfig().getLong("cache.link-negative-ttl", 600) * 1000L;
+        this.getUuidTime = plugin.getMetrics().integration("discordsrv", "get_uuid");
+        this.getUuidsTime = plugin.getMetrics().integration("discordsrv", "get_uuids");
+        this.getDiscordIdTime = plugin.getMetrics().integration("discordsrv", "get_discord_id");
+        this.getLinkedAccountsTime = plugin.getMetrics().integration("discordsrv", "get_linked_accounts");
         if (available) {
             plugin.getLogger().info("DiscordSRV integration initialized.");
         } else {
@@ -42,60 +74,416 @@ public class DiscordSrvIntegration {
         }
 
         // Check cache
-        long cacheTtl = plugin.getConfig().getLong("cache.link-ttl", 60) * 1000L;
-        CachedLink cached = linkCache.get(discordId);
-        if (cached != null && (System.currentTimeMillis() - cached.timestamp) < cacheTtl) {
-            return cached.result;
+        LinkResult cached = cached(discordId);
+        if (cached != null) {
+            return cached;
+        }
+
+        LinkResult indexed = fromIndex(discordId);
+        if (indexed != null) {
+            return indexed;
         }
 
+        // Concurrent misses for the same ID share one lookup
+        return lookups.execute(discordId, () -> load(discordId));
+    }
+
+    private LinkResult load(String discordId) {
         try {
+            long generation = generation(discordId);
             // DiscordSRV API: get UUID from Discord ID
-            UUID uuid = DiscordSRV.getPlugin().getAccountLinkManager().getUuid(discordId);
-            if (uuid == null) {
-                LinkResult result = new LinkResult(false, null, null);
-                linkCache.put(discordId, new CachedLink(result));
-                return result;
+            long start = System.nanoTime();
+            UUID uuid = fetchUuid(discordId);
+            getUuidTime.recordSince(start);
+            LinkResult result = toResult(uuid);
+            cache(discordId, result, generation);
+            return result;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error resolving Discord ID " + discordId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resolve many Discord user IDs at once. Cached entries are served directly and
+     * all misses go to DiscordSRV in a single bulk lookup.
+     * Returns a map of discord ID -> result, in input order. A null value means the
+     * lookup for that ID failed.
+     */
+    public Map<String, LinkResult> resolveAll(Collection<String> discordIds) {
+        Map<String, LinkResult> results = new LinkedHashMap<>();
+        if (!available) {
+            for (String id : discordIds) {
+                results.put(id, null);
             }
+            return results;
+        }
 
-            // Resolve player name
-            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-            String name = player.getName();
-            if (name == null) {
-                name = uuid.toString(); // fallback
+        Set<String> misses = new LinkedHashSet<>();
+        for (String id : discordIds) {
+            LinkResult result = cached(id);
+            if (result == null) {
+                result = fromIndex(id);
             }
+            results.put(id, result);
+            if (result == null) {
+                misses.add(id);
+            }
+        }
 
-            LinkResult result = new LinkResult(true, uuid.toString(), name);
-            linkCache.put(discordId, new CachedLink(result));
-            return result;
+        if (misses.isEmpty()) {
+            return results;
+        }
+
+        try {
+            Map<String, Long> generationById = new HashMap<>();
+            for (String id : misses) {
+                generationById.put(id, generation(id));
+            }
+            // DiscordSRV API: one query for every uncached ID
+            long start = System.nanoTime();
+            Map<String, UUID> uuids = fetchUuids(misses);
+            getUuidsTime.recordSince(start);
+            for (String id : misses) {
+                LinkResult result = toResult(uuids.get(id));
+                cache(id, result, generationById.get(id));
+                results.put(id, result);
+            }
         } catch (Exception e) {
-            plugin.getLogger().warning("Error resolving Discord ID " + discordId + ": " + e.getMessage());
+            plugin.getLogger().warning("Error bulk-resolving " + misses.size() + " Discord IDs: " + e.getMessage());
+        }
+
+        return results;
+    }
+
+    /**
+     * Reverse lookup: the Discord user ID linked to a Minecraft UUID.
+     * Returns null if not linked, on error, or if DiscordSRV is unavailable.
+     */
+    public String getDiscordId(String uuidStr) {
+        if (!available) {
             return null;
         }
+
+        try {
+            return lookupDiscordId(uuidStr);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Like {@link #getDiscordId}, but throws IllegalStateException if DiscordSRV is
+     * unavailable or the lookup fails, so callers can tell that from "not linked".
+     */
+    public String lookupDiscordId(String uuidStr) {
+        if (!available) {
+            throw new IllegalStateException("DiscordSRV integration unavailable");
+        }
+
+        try {
+            LinkIndex index = readyIndex();
+            if (index != null) {
+                long discordId = index.getDiscordId(UUID.fromString(uuidStr));
+                return discordId > 0 ? Long.toString(discordId) : null;
+            }
+
+            long start = System.nanoTime();
+            String discordId = fetchDiscordId(UUID.fromString(uuidStr));
+            getDiscordIdTime.recordSince(start);
+            return discordId;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error resolving Discord ID for " + uuidStr + ": " + e.getMessage());
+            throw new IllegalStateException("Failed to query DiscordSRV", e);
+        }
+    }
+
+    /**
+     * Called when DiscordSRV links an account: replace any cached result.
+     */
+    public void onLinked(String discordId, UUID uuid) {
+        LinkResult result = toResult(uuid);
+        bump(discordId);
+        cache(discordId, result);
+        updateIndex(discordId, uuid);
+        plugin.publishEvent("link.linked", out -> out.beginObject()
+            .name("discord_id").value(discordId)
+            .name("uuid").value(result.uuid)
+            .name("name").value(result.name)
+            .endObject());
+    }
+
+    /**
+     * Called when DiscordSRV unlinks an account: cache the "not linked" result.
+     * uuid is the previously linked player, if DiscordSRV reported it.
+     */
+    public void onUnlinked(String discordId, UUID uuid) {
+        bump(discordId);
+        cache(discordId, toResult(null));
+        updateIndex(discordId, null);
+        plugin.publishEvent("link.unlinked", out -> out.beginObject()
+            .name("discord_id").value(discordId)
+            .name("uuid").value(uuid != null ? uuid.toString() : null)
+            .endObject());
+    }
+
+    /**
+     * Every linked player. Without the link index this reads DiscordSRV's whole link
+     * table, so keep it off the main thread.
+     */
+    public Collection<UUID> getLinkedUuids() {
+        if (!available) {
+            return Collections.emptyList();
+        }
+        try {
+            LinkIndex index = readyIndex();
+            if (index != null) {
+                return index.getUuids();
+            }
+            long start = System.nanoTime();
+            Collection<UUID> uuids = new ArrayList<>(fetchLinkedAccounts().values());
+            getLinkedAccountsTime.recordSince(start);
+            return uuids;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error listing linked accounts: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Open the link index and keep it in step with DiscordSRV: a full resync now and
+     * every link-index.resync-interval minutes, link events in between. A saved
+     * index serves lookups from the start; a new one once the first resync is done.
+     */
+    public void startLinkIndex() {
+        if (!available || !plugin.getConfig().getBoolean("link-index.enabled", true)) {
+            return;
+        }
+        // Opening maps and scans the file, so it happens off the main thread as well
+        Runnable task = () -> {
+            if (linkIndex == null && !openLinkIndex()) {
+                return;
+            }
+            syncLinkIndex();
+        };
+        long intervalTicks = plugin.getConfig().getLong("link-index.resync-interval", 10) * 60L * 20L;
+        if (intervalTicks > 0) {
+            linkIndexSync = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, task, 0L, intervalTicks);
+        } else {
+            linkIndexSync = Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        }
+    }
+
+    private boolean openLinkIndex() {
+        File file = new File(plugin.getDataFolder(), plugin.getConfig().getString("link-index.file", "link-index.bin"));
+        try {
+            file.getParentFile().mkdirs();
+            LinkIndex index = LinkIndex.open(file);
+            if (index.isReady()) {
+                plugin.getLogger().info("Link index loaded: " + index.size() + " links.");
+            }
+            linkIndex = index;
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not open link index " + file + ": " + e.getMessage()
+                    + " - link lookups will go to DiscordSRV.");
+            return false;
+        }
+    }
+
+    /**
+     * Replace the link index with DiscordSRV's current links. Catches links made
+     * where no event reaches this server, e.g. another server sharing DiscordSRV's database.
+     */
+    public void syncLinkIndex() {
+        LinkIndex index = linkIndex;
+        if (index == null) {
+            return;
+        }
+        boolean wasReady = index.isReady();
+        index.beginSync();
+        try {
+            long start = System.nanoTime();
+            Map<String, UUID> links = fetchLinkedAccounts();
+            getLinkedAccountsTime.recordSince(start);
+            index.finishSync(links);
+            if (!wasReady) {
+                plugin.getLogger().info("Link index synced: " + index.size() + " links.");
+            }
+        } catch (Exception e) {
+            index.abortSync();
+            plugin.getLogger().warning("Error syncing link index: " + e.getMessage());
+        }
+    }
+
+    public void stopLinkIndex() {
+        if (linkIndexSync != null) {
+            linkIndexSync.cancel();
+            linkIndexSync = null;
+        }
+        if (linkIndex != null) {
+            linkIndex.flush();
+        }
+    }
+
+    /**
+     * The link index, or null if it is disabled or couldn't be opened.
+     */
+    public LinkIndex getLinkIndex() {
+        return linkIndex;
+    }
+
+    /**
+     * Whether a Discord id's link is cached, without counting a cache hit.
+     */
+    public boolean isCached(String discordId) {
+        long key = RequestParser.parseSnowflake(discordId);
+        return key >= 0 && linkCache.contains(key);
     }
 
     public void clearCache() {
         linkCache.clear();
     }
 
+    public LongTtlCache<LinkResult> getCache() {
+        return linkCache;
+    }
+
+    public SingleFlight<String, LinkResult> getLookups() {
+        return lookups;
+    }
+
+    // ---- DiscordSRV calls; the load-test harness overrides these with stand-ins ----
+
+    UUID fetchUuid(String discordId) {
+        return DiscordSRV.getPlugin().getAccountLinkManager().getUuid(discordId);
+    }
+
+    Map<String, UUID> fetchUuids(Set<String> discordIds) {
+        return DiscordSRV.getPlugin().getAccountLinkManager().getManyUuids(discordIds);
+    }
+
+    String fetchDiscordId(UUID uuid) {
+        return DiscordSRV.getPlugin().getAccountLinkManager().getDiscordId(uuid);
+    }
+
+    Map<String, UUID> fetchLinkedAccounts() {
+        return DiscordSRV.getPlugin().getAccountLinkManager().getLinkedAccounts();
+    }
+
+    private LinkIndex readyIndex() {
+        LinkIndex index = linkIndex;
+        return index != null && index.isReady() ? index : null;
+    }
+
+    /**
+     * Answer from the link index: "not linked" outright, or the linked player, which
+     * is cached like a DiscordSRV answer. Null if the index can't answer.
+     */
+    private LinkResult fromIndex(String discordId) {
+        LinkIndex index = readyIndex();
+        long key = RequestParser.parseSnowflake(discordId);
+        if (index == null || key <= 0) {
+            return null;
+        }
+        long generation = generations.get(key, 0);
+        UUID uuid = index.getUuid(key);
+        if (uuid == null) {
+            return NOT_LINKED;
+        }
+        LinkResult result = toResult(uuid);
+        cache(discordId, result, generation);
+        return result;
+    }
+
+    private void updateIndex(String discordId, UUID uuid) {
+        LinkIndex index = linkIndex;
+        long key = RequestParser.parseSnowflake(discordId);
+        if (index == null || key <= 0) {
+            return;
+        }
+        try {
+            if (uuid != null) {
+                index.put(key, uuid);
+            } else {
+                index.remove(key);
+            }
+        } catch (UncheckedIOException e) {
+            plugin.getLogger().warning("Error updating link index, lookups go to DiscordSRV until it resyncs: "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Ids that aren't snowflakes (handlers reject them anyway) are never cached.
+     */
+    private LinkResult cached(String discordId) {
+        long key = RequestParser.parseSnowflake(discordId);
+        return key < 0 ? null : linkCache.get(key);
+    }
+
+    private void cache(String discordId, LinkResult result) {
+        long key = RequestParser.parseSnowflake(discordId);
+        if (key >= 0) {
+            linkCache.put(key, result, result.linked ? linkTtlMs : negativeTtlMs);
+        }
+    }
+
+    /**
+     * Cache a looked-up result unless a link event for the id came in since
+     * generation was taken; the event has cached the newer answer.
+     */
+    private void cache(String discordId, LinkResult result, long generation) {
+        long key = RequestParser.parseSnowflake(discordId);
+        if (key >= 0) {
+            generations.runIfCurrent(key, 0, generation,
+                    () -> linkCache.put(key, result, result.linked ? linkTtlMs : negativeTtlMs));
+        }
+    }
+
+    private long generation(String discordId) {
+        return generations.get(RequestParser.parseSnowflake(discordId), 0);
+    }
+
+    private void bump(String discordId) {
+        generations.bump(RequestParser.parseSnowflake(discordId), 0);
+    }
+
+    private static LinkResult toResult(UUID uuid) {
+        if (uuid == null) {
+            return NOT_LINKED;
+        }
+
+        // Resolve player name
+        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+        String name = player.getName();
+        if (name == null) {
+            name = uuid.toString(); // fallback
+        }
+        return new LinkResult(true, uuid.toString(), name);
+    }
+
     public static class LinkResult {
         public final boolean linked;
         public final String uuid;
         public final String name;
 
+        // Encoded response body, filled in by the HTTP layer on first use and
+        // kept with the cached result so later hits skip serialization
+        private volatile byte[] json;
+
         public LinkResult(boolean linked, String uuid, String name) {
             this.linked = linked;
             this.uuid = uuid;
             this.name = name;
         }
-    }
 
-    private static class CachedLink {
-        final LinkResult result;
-        final long timestamp;
+        public byte[] getJson() {
+            return json;
+        }
 
-        CachedLink(LinkResult result) {
-            this.result = result;
-            this.timestamp = System.currentTimeMillis();
+        public void setJson(byte[] json) {
+            this.json = json;
         }
     }
 }
@@ -0,0 +1,150 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.RunbadBotBridge;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a joining player's link, vote status and prefetch.placeholders into the
+ * caches, so the Discord commands players tend to run right after joining are hits.
+ *
+ * Runs on its own small pool (prefetch.max-concurrent threads, prefetch.queue-size
+ * waiting players); joins beyond that are dropped rather than queued without bound.
+ * Anything already cached is skipped.
+ */
+public class JoinPrefetcher {
+
+    private final RunbadBotBridge plugin;
+    private final boolean enabled;
+    private final long delayTicks;
+    private final List<String> placeholders = new ArrayList<>();
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder fresh = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public JoinPrefetcher(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("prefetch.enabled", true);
+        this.delayTicks = Math.max(0, plugin.getConfig().getLong("prefetch.delay", 2)) * 20L;
+        for (String placeholder : plugin.getConfig().getStringList("prefetch.placeholders")) {
+            if (!PlaceholderApiIntegration.isAllowed(placeholder)) {
+                plugin.getLogger().warning("Prefetch placeholder '" + placeholder + "' skipped: invalid or blocked.");
+            } else if (placeholders.size() == 20) {
+                plugin.getLogger().warning("Prefetch placeholder '" + placeholder + "' skipped: at most 20.");
+            } else {
+                placeholders.add(placeholder);
+            }
+        }
+
+        int threads = Math.max(1, plugin.getConfig().getInt("prefetch.max-concurrent", 2));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, plugin.getConfig().getInt("prefetch.queue-size", 100))),
+                r -> {
+                    Thread thread = new Thread(r, "RunbadBridge-Prefetch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, pool) -> dropped.increment());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Prefetch for a player who just joined, after prefetch.delay seconds so plugins
+     * have loaded their data. Main thread only.
+     */
+    public void onJoin(Player player) {
+        if (!enabled) {
+            return;
+        }
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            if (player.isOnline()) {
+                UUID uuid = player.getUniqueId();
+                executor.execute(() -> prefetch(uuid));
+            }
+        }, delayTicks);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Players whose data was loaded, at least in part.
+     */
+    public long getPrefetched() {
+        return prefetched.sum();
+    }
+
+    /**
+     * Players skipped because everything was already cached.
+     */
+    public long getFresh() {
+        return fresh.sum();
+    }
+
+    /**
+     * Players skipped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    private void prefetch(UUID uuid) {
+        String uuidStr = uuid.toString();
+        boolean loaded = false;
+        try {
+            DiscordSrvIntegration discordSrv = plugin.getDiscordSrv();
+            if (discordSrv.isAvailable()) {
+                // An in-memory lookup when the link index is ready
+                String discordId = discordSrv.getDiscordId(uuidStr);
+                if (discordId != null && !discordSrv.isCached(discordId)) {
+                    discordSrv.resolve(discordId);
+                    loaded = true;
+                }
+            }
+
+            VotePluginIntegration votePlugin = plugin.getVotePlugin();
+            if (votePlugin.isAvailable() && !votePlugin.isCached(uuid)) {
+                votePlugin.getVoteStatus(uuidStr);
+                loaded = true;
+            }
+
+            PlaceholderApiIntegration placeholderApi = plugin.getPlaceholderApi();
+            if (placeholderApi.isAvailable() && !placeholders.isEmpty()) {
+                List<String> misses = new ArrayList<>();
+                for (String placeholder : placeholders) {
+                    if (!placeholderApi.isCached(uuidStr, placeholder)) {
+                        misses.add(placeholder);
+                    }
+                }
+                if (!misses.isEmpty()) {
+                    placeholderApi.evaluate(uuidStr, misses);
+                    loaded = true;
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error prefetching data for " + uuidStr + ": " + e.getMessage());
+        }
+        (loaded ? prefetched : fresh).increment();
+    }
+}
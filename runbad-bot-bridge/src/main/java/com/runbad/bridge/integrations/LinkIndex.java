@@ -0,0 +1,620 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.api.RequestParser;
+import com.runbad.bridge.cache.BloomFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Every DiscordSRV link in both directions (snowflake -> UUID, UUID -> snowflake),
+ * so lookups, including "not linked", are answered without DiscordSRV's database.
+ *
+ * The index is two open-addressing tables in a memory-mapped file, which survives
+ * restarts: a restart serves from the file at once instead of waiting for a full
+ * read of DiscordSRV's links. A Bloom filter per direction sits in front and
+ * answers most "not linked" lookups without touching the file.
+ *
+ * Link events update it in place. A resync replaces it with a fresh copy of
+ * DiscordSRV's table, built and written outside the lock; events arriving while
+ * that copy is read and written are replayed on top when it is swapped in. Reads
+ * are optimistic and retry under the read lock if a write overlapped.
+ *
+ * Each rebuild (resync or growing) writes a new generation, file.1, file.2 and so
+ * on, and older ones are deleted. A mapped file is never replaced or truncated,
+ * which Windows refuses while the old mapping is alive; a generation that can't be
+ * deleted yet is retried after the next rebuild and at startup. The magic number
+ * is written last, so a generation cut short by a crash is skipped on load.
+ *
+ * File layout: a 32-byte header (magic, version, capacity, count, synced-at),
+ * then capacity records of (snowflake, uuid msb, uuid lsb) hashed by snowflake,
+ * then capacity records of (uuid msb, uuid lsb, snowflake) hashed by UUID. A
+ * snowflake of 0 marks an empty slot and -1 a removed one.
+ */
+public class LinkIndex {
+
+    private static final int MAGIC = 0x52424C49; // "RBLI"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int RECORD = 24;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+
+    private final File file;
+    private long generation; // generation file of the current table, guarded by the write lock
+    private long lastGeneration; // highest generation number handed out, guarded by the write lock
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private volatile boolean ready;
+    private List<Op> journal; // events during a resync, guarded by the write lock
+
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder probed = new LongAdder();
+
+    private LinkIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Map the newest complete generation of the index file, or start an empty index
+     * if there is none. An index loaded from a file is ready at once; an empty one
+     * becomes ready after the first resync.
+     */
+    public static LinkIndex open(File file) throws IOException {
+        LinkIndex index = new LinkIndex(file);
+        List<Long> generations = index.generations();
+        // New generations go after any incomplete ones
+        index.lastGeneration = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+        for (int i = generations.size() - 1; i >= 0; i--) {
+            Table loaded = load(index.generationFile(generations.get(i)));
+            if (loaded != null) {
+                index.table = loaded;
+                index.ready = true;
+                index.generation = generations.get(i);
+                index.deleteOlderGenerations();
+                return index;
+            }
+        }
+        index.table = index.write(MIN_CAPACITY, new ArrayList<>(), 0);
+        return index;
+    }
+
+    /**
+     * True once the index holds a full copy of DiscordSRV's links (from the file
+     * or a resync) and hasn't failed since.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The player linked to a Discord id, or null if not linked.
+     */
+    public UUID getUuid(long discordId) {
+        long stamp = lock.tryOptimisticRead();
+        Table t = table;
+        boolean maybe = t.byDiscord.mightContain(discordId, 0);
+        UUID uuid = maybe ? t.readUuid(discordId) : null;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                t = table;
+                maybe = t.byDiscord.mightContain(discordId, 0);
+                uuid = maybe ? t.readUuid(discordId) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        (maybe ? probed : filtered).increment();
+        return uuid;
+    }
+
+    /**
+     * The Discord id linked to a player, or -1 if not linked.
+     */
+    public long getDiscordId(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        Table t = table;
+        boolean maybe = t.byUuid.mightContain(msb, lsb);
+        long discordId = maybe ? t.readDiscordId(msb, lsb) : -1;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                t = table;
+                maybe = t.byUuid.mightContain(msb, lsb);
+                discordId = maybe ? t.readDiscordId(msb, lsb) : -1;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        (maybe ? probed : filtered).increment();
+        return discordId;
+    }
+
+    /**
+     * Every linked player.
+     */
+    public List<UUID> getUuids() {
+        long stamp = lock.readLock();
+        try {
+            Table t = table;
+            List<UUID> uuids = new ArrayList<>(t.count);
+            for (int slot = 0; slot < t.capacity; slot++) {
+                int at = HEADER + slot * RECORD;
+                if (t.buffer.getLong(at) > 0) {
+                    uuids.add(new UUID(t.buffer.getLong(at + 8), t.buffer.getLong(at + 16)));
+                }
+            }
+            return uuids;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Record a link, replacing any earlier link of either account.
+     */
+    public void put(long discordId, UUID uuid) {
+        apply(new Op(discordId, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), false));
+    }
+
+    public void remove(long discordId) {
+        apply(new Op(discordId, 0, 0, true));
+    }
+
+    /**
+     * Start journaling events; call before reading DiscordSRV's links for a resync.
+     */
+    public void beginSync() {
+        long stamp = lock.writeLock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replace the index with DiscordSRV's links (discord id -> uuid) plus the events
+     * journaled since {@link #beginSync()}, and write it to the file. The new file is
+     * built and forced without the lock, so lookups keep going meanwhile.
+     */
+    public void finishSync(Map<String, UUID> links) throws IOException {
+        List<long[]> entries = new ArrayList<>(links.size());
+        for (Map.Entry<String, UUID> e : links.entrySet()) {
+            long discordId = RequestParser.parseSnowflake(e.getKey());
+            if (discordId > 0 && e.getValue() != null) {
+                UUID uuid = e.getValue();
+                entries.add(new long[] {discordId, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()});
+            }
+        }
+
+        long reserved;
+        long stamp = lock.writeLock();
+        try {
+            reserved = ++lastGeneration;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        Table synced;
+        try {
+            synced = writeFile(reserved, capacityFor(entries.size()), entries, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            abortSync();
+            generationFile(reserved).delete();
+            throw e;
+        }
+
+        stamp = lock.writeLock();
+        try {
+            if (generation > reserved) {
+                // The table grew meanwhile, into a newer generation; copy forward so
+                // the newest file is still the current one
+                synced = synced.grow(this, synced.count);
+            } else {
+                generation = reserved;
+                deleteOlderGenerations();
+            }
+            List<Op> events = journal != null ? journal : new ArrayList<>();
+            for (Op op : events) {
+                synced = op.applyTo(synced, this);
+            }
+            table = synced;
+            journal = null;
+            ready = true;
+        } catch (RuntimeException e) {
+            journal = null;
+            throw e;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        synced.buffer.force();
+    }
+
+    public void abortSync() {
+        long stamp = lock.writeLock();
+        try {
+            journal = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Write outstanding changes to disk.
+     */
+    public void flush() {
+        table.buffer.force();
+    }
+
+    public int size() {
+        return table.count;
+    }
+
+    /**
+     * When the index was last replaced with DiscordSRV's links (epoch ms), 0 if never.
+     */
+    public long getSyncedAt() {
+        return table.buffer.getLong(16);
+    }
+
+    /**
+     * Lookups answered "not linked" by the Bloom filters alone.
+     */
+    public long getFiltered() {
+        return filtered.sum();
+    }
+
+    /**
+     * Lookups that had to probe the file.
+     */
+    public long getProbed() {
+        return probed.sum();
+    }
+
+    public long getFileBytes() {
+        return table.buffer.capacity();
+    }
+
+    public int getFilterBytes() {
+        Table t = table;
+        return t.byDiscord.getBytes() + t.byUuid.getBytes();
+    }
+
+    private void apply(Op op) {
+        long stamp = lock.writeLock();
+        try {
+            if (journal != null) {
+                journal.add(op);
+            }
+            table = op.applyTo(table, this);
+        } catch (UncheckedIOException e) {
+            ready = false; // couldn't grow the file; lookups go to DiscordSRV until the next resync
+            throw e;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int capacityFor(int links) {
+        // At most half full after a rebuild, grown once three quarters are used
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, links) * 4 - 1));
+    }
+
+    /**
+     * Map an existing index file, or null if it is missing or not a valid index.
+     */
+    private static Table load(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length < HEADER) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            int capacity = buffer.getInt(8);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || capacity < MIN_CAPACITY
+                    || Integer.bitCount(capacity) != 1 || length != HEADER + 2L * capacity * RECORD) {
+                return null;
+            }
+            return new Table(buffer, capacity);
+        }
+    }
+
+    /**
+     * Write a fresh index holding entries (snowflake, msb, lsb) as the next
+     * generation, make it the current generation and return its mapping. Called
+     * under the write lock.
+     */
+    private Table write(int capacity, List<long[]> entries, long syncedAt) throws IOException {
+        long next = ++lastGeneration;
+        Table t = writeFile(next, capacity, entries, syncedAt);
+        generation = next;
+        deleteOlderGenerations();
+        return t;
+    }
+
+    /**
+     * Write and force a complete index file for generation gen. Touches no shared
+     * state, so it needs no lock.
+     */
+    private Table writeFile(long gen, int capacity, List<long[]> entries, long syncedAt) throws IOException {
+        File target = generationFile(gen);
+        Table t;
+        try (RandomAccessFile raf = new RandomAccessFile(target, "rw"); FileChannel channel = raf.getChannel()) {
+            long length = HEADER + 2L * capacity * RECORD;
+            raf.setLength(0);
+            raf.setLength(length);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putLong(16, syncedAt);
+            t = new Table(buffer, capacity);
+            for (long[] entry : entries) {
+                t.insert(entry[0], entry[1], entry[2]);
+            }
+            buffer.force();
+            buffer.putInt(0, MAGIC); // complete
+            buffer.force();
+        }
+        return t;
+    }
+
+    private File generationFile(long gen) {
+        return new File(file.getPath() + "." + gen);
+    }
+
+    /**
+     * Generation numbers of the index files present, oldest first.
+     */
+    private List<Long> generations() {
+        List<Long> generations = new ArrayList<>();
+        File dir = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + ".";
+        String[] names = dir != null ? dir.list() : null;
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(prefix)) {
+                    try {
+                        generations.add(Long.parseLong(name.substring(prefix.length())));
+                    } catch (NumberFormatException ignored) {
+                        // e.g. a .tmp file
+                    }
+                }
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    /**
+     * Delete every generation before the current one. A file still mapped on
+     * Windows can't be deleted yet and is left for the next attempt. Called under
+     * the write lock (or before the index is shared).
+     */
+    private void deleteOlderGenerations() {
+        for (long gen : generations()) {
+            if (gen < generation) {
+                generationFile(gen).delete();
+            }
+        }
+    }
+
+    /**
+     * A link event, kept so it can be replayed onto a resynced table.
+     */
+    private static final class Op {
+        final long discordId;
+        final long msb;
+        final long lsb;
+        final boolean remove;
+
+        Op(long discordId, long msb, long lsb, boolean remove) {
+            this.discordId = discordId;
+            this.msb = msb;
+            this.lsb = lsb;
+            this.remove = remove;
+        }
+
+        /**
+         * Apply to a table; returns the table to use from now on, which is a new,
+         * larger one if this one had to grow.
+         */
+        Table applyTo(Table t, LinkIndex index) {
+            int slot = t.findDiscord(discordId);
+            if (slot >= 0) {
+                int at = HEADER + slot * RECORD;
+                if (!remove && t.buffer.getLong(at + 8) == msb && t.buffer.getLong(at + 16) == lsb) {
+                    return t; // already linked like this
+                }
+                t.delete(discordId, t.buffer.getLong(at + 8), t.buffer.getLong(at + 16));
+            }
+            if (remove) {
+                return t;
+            }
+            long previous = t.readDiscordId(msb, lsb);
+            if (previous > 0) {
+                t.delete(previous, msb, lsb);
+            }
+            if (t.used + 1 > t.capacity / 4 * 3) {
+                t = t.grow(index, t.count + 1);
+            }
+            t.insert(discordId, msb, lsb);
+            return t;
+        }
+    }
+
+    /**
+     * One mapping of the index file with its filters. Mutated only under the write lock.
+     */
+    private static final class Table {
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final int uuidBase;
+        final BloomFilter byDiscord;
+        final BloomFilter byUuid;
+        int count; // links
+        int used; // links plus removed slots, the larger of the two tables
+
+        Table(MappedByteBuffer buffer, int capacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.uuidBase = HEADER + capacity * RECORD;
+            this.byDiscord = new BloomFilter(capacity / 2);
+            this.byUuid = new BloomFilter(capacity / 2);
+            int removed = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                int at = HEADER + slot * RECORD;
+                long discordId = buffer.getLong(at);
+                if (discordId > 0) {
+                    byDiscord.add(discordId, 0);
+                    byUuid.add(buffer.getLong(at + 8), buffer.getLong(at + 16));
+                    count++;
+                } else if (discordId == REMOVED) {
+                    removed++;
+                }
+            }
+            this.used = count + removed;
+            buffer.putInt(12, count);
+        }
+
+        UUID readUuid(long discordId) {
+            int slot = findDiscord(discordId);
+            if (slot < 0) {
+                return null;
+            }
+            int at = HEADER + slot * RECORD;
+            return new UUID(buffer.getLong(at + 8), buffer.getLong(at + 16));
+        }
+
+        long readDiscordId(long msb, long lsb) {
+            int slot = findUuid(msb, lsb);
+            return slot < 0 ? -1 : buffer.getLong(uuidBase + slot * RECORD + 16);
+        }
+
+        /**
+         * Bounded by the capacity so a read racing a write can't loop forever.
+         */
+        int findDiscord(long discordId) {
+            int mask = capacity - 1;
+            int slot = (int) hash(discordId, 0) & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                long stored = buffer.getLong(HEADER + slot * RECORD);
+                if (stored == EMPTY) {
+                    return -1;
+                }
+                if (stored == discordId) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int findUuid(long msb, long lsb) {
+            int mask = capacity - 1;
+            int slot = (int) hash(msb, lsb) & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                int at = uuidBase + slot * RECORD;
+                long stored = buffer.getLong(at + 16);
+                if (stored == EMPTY) {
+                    return -1;
+                }
+                if (stored != REMOVED && buffer.getLong(at) == msb && buffer.getLong(at + 8) == lsb) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Add a link whose accounts are in neither table.
+         */
+        void insert(long discordId, long msb, long lsb) {
+            int mask = capacity - 1;
+            int slot = (int) hash(discordId, 0) & mask;
+            while (buffer.getLong(HEADER + slot * RECORD) > 0) {
+                slot = (slot + 1) & mask;
+            }
+            int at = HEADER + slot * RECORD;
+            boolean reused = buffer.getLong(at) == REMOVED;
+            buffer.putLong(at + 8, msb);
+            buffer.putLong(at + 16, lsb);
+            buffer.putLong(at, discordId);
+
+            slot = (int) hash(msb, lsb) & mask;
+            while (buffer.getLong(uuidBase + slot * RECORD + 16) > 0) {
+                slot = (slot + 1) & mask;
+            }
+            at = uuidBase + slot * RECORD;
+            reused &= buffer.getLong(at + 16) == REMOVED;
+            buffer.putLong(at, msb);
+            buffer.putLong(at + 8, lsb);
+            buffer.putLong(at + 16, discordId);
+
+            byDiscord.add(discordId, 0);
+            byUuid.add(msb, lsb);
+            count++;
+            if (!reused) {
+                used++;
+            }
+            buffer.putInt(12, count);
+        }
+
+        void delete(long discordId, long msb, long lsb) {
+            int slot = findDiscord(discordId);
+            if (slot >= 0) {
+                buffer.putLong(HEADER + slot * RECORD, REMOVED);
+            }
+            slot = findUuid(msb, lsb);
+            if (slot >= 0) {
+                buffer.putLong(uuidBase + slot * RECORD + 16, REMOVED);
+            }
+            count--;
+            buffer.putInt(12, count);
+        }
+
+        Table grow(LinkIndex index, int links) {
+            List<long[]> entries = new ArrayList<>(count);
+            for (int slot = 0; slot < capacity; slot++) {
+                int at = HEADER + slot * RECORD;
+                long discordId = buffer.getLong(at);
+                if (discordId > 0) {
+                    entries.add(new long[] {discordId, buffer.getLong(at + 8), buffer.getLong(at + 16)});
+                }
+            }
+            try {
+                return index.write(capacityFor(links), entries, buffer.getLong(16));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static long hash(long k1, long k2) {
+        // murmur3 fmix64
+        long h = k1 * 0x9E3779B97F4A7C15L ^ k2;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,11 +1,19 @@
 package com.runbad.bridge.integrations;
 
 import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.cache.SingleFlight;
+import com.runbad.bridge.cache.TtlCache;
+import com.runbad.bridge.metrics.Histogram;
 import me.clip.placeholderapi.PlaceholderAPI;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 public class PlaceholderApiIntegration {
@@ -21,9 +29,40 @@ public class PlaceholderApiIntegration {
         "%server_command_", "%javascript_", "%math_", "%pinger_"
     );
 
+    // Evaluated values keyed by "uuid|placeholder"
+    private final TtlCache<String, String> valueCache;
+    private final long defaultTtlMs;
+    private final Map<String, Long> expansionTtlMs = new HashMap<>();
+    // Identical concurrent requests (same player, same misses) share one evaluation
+    private final SingleFlight<String, Map<String, String>> evaluations = new SingleFlight<>();
+
+    // Main-thread evaluation (null when evaluating on the calling thread)
+    private final TickBatchScheduler scheduler;
+    private final long timeoutMs;
+    // Time inside PlaceholderAPI itself, and from queueing to the result for main-thread evaluation
+    private final Histogram setPlaceholdersTime;
+    private final Histogram mainThreadWaitTime;
+
     public PlaceholderApiIntegration(RunbadBotBridge plugin) {
         this.plugin = plugin;
         this.available = Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI");
+        this.valueCache = new TtlCache<>(plugin.getConfig().getInt("cache.placeholder-max-entries", 10000));
+        this.defaultTtlMs = plugin.getConfig().getLong("cache.placeholder-ttl", 10) * 1000L;
+        ConfigurationSection overrides = plugin.getConfig().getConfigurationSection("cache.placeholder-ttl-overrides");
+        if (overrides != null) {
+            for (String expansion : overrides.getKeys(false)) {
+                expansionTtlMs.put(expansion.toLowerCase(), overrides.getLong(expansion) * 1000L);
+            }
+        }
+        this.timeoutMs = plugin.getConfig().getLong("placeholders.timeout-ms", 2000);
+        this.setPlaceholdersTime = plugin.getMetrics().integration("placeholderapi", "set_placeholders");
+        this.mainThreadWaitTime = plugin.getMetrics().integration("placeholderapi", "main_thread_wait");
+        if (available && plugin.getConfig().getBoolean("placeholders.main-thread", true)) {
+            scheduler = new TickBatchScheduler(plugin, plugin.getConfig().getLong("placeholders.tick-budget-ms", 5));
+            scheduler.start();
+        } else {
+            scheduler = null;
+        }
         if (available) {
             plugin.getLogger().info("PlaceholderAPI integration initialized.");
         } else {
@@ -57,6 +96,7 @@ public class PlaceholderApiIntegration {
         try {
             UUID uuid = UUID.fromString(uuidStr);
             OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+            List<String> misses = new ArrayList<>();
 
             for (String placeholder : placeholders) {
                 // Validate format
@@ -66,32 +106,163 @@ public class PlaceholderApiIntegration {
                 }
 
                 // Check blocklist
-                String lower = placeholder.toLowerCase();
-                boolean blocked = false;
-                for (String prefix : BLOCKED_PREFIXES) {
-                    if (lower.startsWith(prefix)) {
-                        blocked = true;
-                        break;
-                    }
-                }
-                if (blocked) {
+                if (isBlocked(placeholder)) {
                     results.put(placeholder, "BLOCKED");
                     continue;
                 }
 
-                // Evaluate
-                String result = PlaceholderAPI.setPlaceholders(player, placeholder);
-                results.put(placeholder, result);
+                // Serve unchanged values from cache
+                String cached = valueCache.get(uuidStr + "|" + placeholder);
+                results.put(placeholder, cached); // keeps response order for misses
+                if (cached == null) {
+                    misses.add(placeholder);
+                }
+            }
+
+            if (!misses.isEmpty()) {
+                String flightKey = uuidStr + "|" + String.join(",", misses);
+                Map<String, String> evaluated = evaluations.execute(flightKey, () -> evaluateMisses(player, misses));
+                for (String placeholder : misses) {
+                    String value = evaluated.get(placeholder);
+                    results.put(placeholder, value);
+                    if (!"ERROR".equals(value) && !"TIMEOUT".equals(value)) {
+                        valueCache.put(uuidStr + "|" + placeholder, value, getTtlMs(placeholder.toLowerCase()));
+                    }
+                }
             }
         } catch (IllegalArgumentException e) {
             throw e; // Re-throw validation errors
         } catch (Exception e) {
             plugin.getLogger().warning("Error evaluating placeholders for " + uuidStr + ": " + e.getMessage());
             for (String ph : placeholders) {
-                results.putIfAbsent(ph, "ERROR");
+                if (results.get(ph) == null) {
+                    results.put(ph, "ERROR");
+                }
             }
         }
 
         return results;
     }
+
+    /**
+     * Whether a placeholder has the allowed format and is not on the blocklist.
+     */
+    public static boolean isAllowed(String placeholder) {
+        return PLACEHOLDER_PATTERN.matcher(placeholder).matches() && !isBlocked(placeholder);
+    }
+
+    private static boolean isBlocked(String placeholder) {
+        String lower = placeholder.toLowerCase();
+        for (String prefix : BLOCKED_PREFIXES) {
+            if (lower.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluate uncached placeholders, on the main thread when configured.
+     * Every placeholder gets a value; TIMEOUT if its tick did not arrive in time.
+     */
+    private Map<String, String> evaluateMisses(OfflinePlayer player, List<String> misses) {
+        if (scheduler == null || Bukkit.isPrimaryThread()) {
+            return setPlaceholders(player, misses);
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long start = System.nanoTime();
+        CompletableFuture<Map<String, String>> future = scheduler.submit(() -> setPlaceholders(player, misses), deadline);
+        try {
+            Map<String, String> values = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            mainThreadWaitTime.recordSince(start);
+            return values;
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            return fill(misses, "TIMEOUT");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                return fill(misses, "TIMEOUT");
+            }
+            plugin.getLogger().warning("Error evaluating placeholders for " + player.getUniqueId() + ": " + e.getCause());
+            return fill(misses, "ERROR");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fill(misses, "ERROR");
+        }
+    }
+
+    private Map<String, String> setPlaceholders(OfflinePlayer player, List<String> placeholders) {
+        Map<String, String> values = new HashMap<>();
+        for (String placeholder : placeholders) {
+            long start = System.nanoTime();
+            try {
+                values.put(placeholder, setPlaceholder(player, placeholder));
+                setPlaceholdersTime.recordSince(start);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error evaluating " + placeholder + ": " + e.getMessage());
+                values.put(placeholder, "ERROR");
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The PlaceholderAPI call itself; the load-test harness overrides it with a stand-in.
+     */
+    String setPlaceholder(OfflinePlayer player, String placeholder) {
+        return PlaceholderAPI.setPlaceholders(player, placeholder);
+    }
+
+    private static Map<String, String> fill(List<String> placeholders, String value) {
+        Map<String, String> values = new HashMap<>();
+        for (String placeholder : placeholders) {
+            values.put(placeholder, value);
+        }
+        return values;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    /**
+     * Whether a player's placeholder value is cached, without counting a cache hit.
+     */
+    public boolean isCached(String uuidStr, String placeholder) {
+        return valueCache.contains(uuidStr + "|" + placeholder);
+    }
+
+    public void clearCache() {
+        valueCache.clear();
+    }
+
+    public SingleFlight<String, Map<String, String>> getEvaluations() {
+        return evaluations;
+    }
+
+    public TickBatchScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public TtlCache<String, String> getCache() {
+        return valueCache;
+    }
+
+    /**
+     * TTL for a placeholder: the override for its expansion (the identifier before
+     * the first underscore) if configured, otherwise cache.placeholder-ttl.
+     */
+    private long getTtlMs(String lowerPlaceholder) {
+        int end = lowerPlaceholder.indexOf('_');
+        if (end > 1) {
+            Long override = expansionTtlMs.get(lowerPlaceholder.substring(1, end));
+            if (override != null) {
+                return override;
+            }
+        }
+        return defaultTtlMs;
+    }
 }
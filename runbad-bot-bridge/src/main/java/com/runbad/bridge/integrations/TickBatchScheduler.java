@@ -0,0 +1,124 @@
+package com.runbad.bridge.integrations;
+
+import com.runbad.bridge.RunbadBotBridge;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs work submitted from HTTP threads on the server main thread.
+ * All pending jobs are drained by a single task per tick, within a time budget,
+ * so a burst is spread over several ticks instead of causing a TPS spike.
+ * Jobs whose deadline passes before they run fail with a TimeoutException.
+ */
+public class TickBatchScheduler {
+
+    private final RunbadBotBridge plugin;
+    private final long tickBudgetNanos;
+    private final Queue<Job<?>> queue = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private BukkitTask task;
+
+    public TickBatchScheduler(RunbadBotBridge plugin, long tickBudgetMs) {
+        this.plugin = plugin;
+        this.tickBudgetNanos = Math.max(1, tickBudgetMs) * 1_000_000L;
+    }
+
+    public void start() {
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stop draining and fail everything still queued.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        Job<?> job;
+        while ((job = queue.poll()) != null) {
+            job.future.completeExceptionally(new CancellationException("Scheduler stopped"));
+        }
+    }
+
+    /**
+     * Queue work for the next tick. The returned future fails with a TimeoutException
+     * if the work has not started by deadlineMs (epoch millis).
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work, long deadlineMs) {
+        Job<T> job = new Job<>(work, deadlineMs);
+        if (task == null) {
+            job.future.completeExceptionally(new CancellationException("Scheduler not running"));
+            return job.future;
+        }
+        queue.add(job);
+        return job.future;
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        boolean ranAny = false;
+        Job<?> job;
+        // Always run at least one job per tick so progress is guaranteed
+        while ((job = queue.peek()) != null) {
+            if (ranAny && System.nanoTime() - start >= tickBudgetNanos) {
+                break;
+            }
+            queue.poll();
+            if (job.future.isDone()) {
+                continue; // caller already gave up
+            }
+            if (System.currentTimeMillis() > job.deadlineMs) {
+                expired.increment();
+                job.future.completeExceptionally(new TimeoutException("Deadline passed before tick"));
+                continue;
+            }
+            job.run();
+            completed.increment();
+            ranAny = true;
+        }
+    }
+
+    private static class Job<T> {
+        final Supplier<T> work;
+        final long deadlineMs;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Job(Supplier<T> work, long deadlineMs) {
+            this.work = work;
+            this.deadlineMs = deadlineMs;
+        }
+
+        void run() {
+            try {
+                future.complete(work.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
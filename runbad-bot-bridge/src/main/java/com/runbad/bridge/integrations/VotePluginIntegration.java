@@ -1,29 +1,53 @@
 package com.runbad.bridge.integrations;
 
 import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.cache.KeyGenerations;
+import com.runbad.bridge.cache.SingleFlight;
+import com.runbad.bridge.cache.UuidTtlCache;
+import com.runbad.bridge.metrics.Histogram;
 import com.bencodez.votingplugin.VotingPluginMain;
 import com.bencodez.votingplugin.objects.VoteSite;
 import com.bencodez.votingplugin.user.VotingPluginUser;
 import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class VotePluginIntegration {
 
     private final RunbadBotBridge plugin;
     private final boolean available;
 
-    // Simple TTL cache
-    private final Map<String, CachedVoteData> voteCache = new ConcurrentHashMap<>();
+    // Last-vote times per player; readiness and countdowns are computed when served
+    private final UuidTtlCache<VoteTimes> voteCache;
+    private final long voteTtlMs;
+    private final SingleFlight<UUID, VoteTimes> lookups = new SingleFlight<>();
+    // Bumped by votes, so a load that read before the vote doesn't cache what it read
+    private final KeyGenerations generations = new KeyGenerations();
+    // Time spent loading a VotingPlugin user and reading their vote times
+    private final Histogram getUserTime;
+
+    // Per-site metadata, rebuilt only when VotingPlugin reloads its sites
+    private volatile SiteTable siteTable;
+
+    // When tracked players' cooldowns end; feeds /v1/vote/ready and vote.ready events
+    private final VoteReadyIndex readyIndex;
+    private volatile BukkitTask readyTask;
+    // Seeding tracks every linked player, so only the first failure is logged
+    private volatile boolean trackWarned;
 
     public VotePluginIntegration(RunbadBotBridge plugin) {
         this.plugin = plugin;
         this.available = Bukkit.getPluginManager().isPluginEnabled("VotingPlugin");
+        this.voteCache = new UuidTtlCache<>(plugin.getConfig().getInt("cache.vote-max-entries", 10000));
+        this.voteTtlMs = plugin.getConfig().getLong("cache.vote-ttl", 3600) * 1000L;
+        this.getUserTime = plugin.getMetrics().integration("votingplugin", "get_user");
+        this.readyIndex = new VoteReadyIndex(plugin.getConfig().getInt("vote-ready.history-size", 10000));
         if (available) {
             plugin.getLogger().info("VotingPlugin integration initialized.");
         } else {
@@ -43,78 +67,251 @@ public class VotePluginIntegration {
             return Collections.emptyList();
         }
 
-        // Check cache
-        long cacheTtl = plugin.getConfig().getLong("cache.vote-ttl", 15) * 1000L;
-        CachedVoteData cached = voteCache.get(uuidStr);
-        if (cached != null && (System.currentTimeMillis() - cached.timestamp) < cacheTtl) {
-            return cached.data;
-        }
-
         try {
-            VotingPluginMain vpMain = VotingPluginMain.getPlugin();
             UUID uuid = UUID.fromString(uuidStr);
-            VotingPluginUser vpUser = vpMain.getUser(uuid);
+            SiteTable sites = getSiteTable();
 
-            List<VoteSiteStatus> results = new ArrayList<>();
+            // Check cache; entries from before a VotingPlugin reload are stale
+            VoteTimes times = voteCache.get(uuid);
+            if (times == null || times.sites != sites) {
+                // Concurrent misses for the same player share one lookup
+                times = lookups.execute(uuid, () -> load(uuid, sites));
+            }
+            return toStatus(times, System.currentTimeMillis());
+        } catch (Throwable e) {
+            plugin.getLogger().warning("Error getting vote status for " + uuidStr + ": " + e.getClass().getName() + ": " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
 
-            for (VoteSite site : vpMain.getVoteSites()) {
-                String siteName = site.getDisplayName();
-                if (siteName == null || siteName.isEmpty()) {
-                    siteName = site.getKey();
-                }
+    private VoteTimes load(UUID uuid, SiteTable sites) {
+        long generation = generations.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        long[] lastVoteMs = readLastVotes(uuid, sites);
+        VoteTimes times = new VoteTimes(sites, lastVoteMs);
+        long now = System.currentTimeMillis();
+
+        // Nothing changes until the earliest cooldown ends (or the player votes,
+        // which invalidates the entry); vote-ttl caps how long we trust the data.
+        long ttl = voteTtlMs;
+        for (int i = 0; i < lastVoteMs.length; i++) {
+            long nextVoteMs = lastVoteMs[i] + sites.sites[i].cooldownMs;
+            if (lastVoteMs[i] > 0 && nextVoteMs > now) {
+                ttl = Math.min(ttl, nextVoteMs - now);
+            }
+        }
+        // Skipped if the player voted during the read: onVote has the newer times
+        long cacheTtl = ttl;
+        generations.runIfCurrent(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), generation, () -> {
+            track(uuid, sites, lastVoteMs, now);
+            voteCache.put(uuid, times, cacheTtl);
+        });
+        return times;
+    }
 
-                // Get the time of last vote for this site
-                long lastVoteTime = vpUser.getTime(site);
-                int cooldownHours = (int) site.getVoteDelay(); // cooldown in hours
-
-                long cooldownMs = cooldownHours * 3600L * 1000L;
-                long nextVoteMs = lastVoteTime + cooldownMs;
-                long now = System.currentTimeMillis();
-
-                boolean readyNow;
-                long nextVoteEpoch;
-                long remainingSeconds;
-
-                if (lastVoteTime <= 0 || now >= nextVoteMs) {
-                    // Never voted or cooldown expired
-                    readyNow = true;
-                    nextVoteEpoch = 0;
-                    remainingSeconds = 0;
-                } else {
-                    readyNow = false;
-                    nextVoteEpoch = nextVoteMs / 1000;
-                    remainingSeconds = (nextVoteMs - now) / 1000;
+    private long[] readLastVotes(UUID uuid, SiteTable sites) {
+        long start = System.nanoTime();
+        long[] lastVoteMs = fetchLastVotes(uuid, sites.sites);
+        getUserTime.recordSince(start);
+        return lastVoteMs;
+    }
+
+    /**
+     * Put the player's running cooldowns into the ready index.
+     */
+    private void track(UUID uuid, SiteTable sites, long[] lastVoteMs, long now) {
+        for (int i = 0; i < lastVoteMs.length; i++) {
+            SiteInfo site = sites.sites[i];
+            if (lastVoteMs[i] > 0 && site.cooldownMs > 0) {
+                readyIndex.schedule(uuid, site.siteName, site.voteUrl, lastVoteMs[i] + site.cooldownMs, now);
+            }
+        }
+    }
+
+    /**
+     * Start moving ended cooldowns into the ready log (and out as vote.ready events),
+     * and load the cooldowns of the seed players in the background.
+     */
+    public void startReadyTracking(Supplier<Collection<UUID>> seedPlayers) {
+        if (!available || readyTask != null) {
+            return;
+        }
+        readyTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::advanceReady, 20L, 20L);
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            long start = System.currentTimeMillis();
+            Collection<UUID> seed = seedPlayers.get();
+            int failed = 0;
+            for (UUID uuid : seed) {
+                if (readyTask == null) {
+                    return; // plugin disabled mid-seed
                 }
+                if (!trackPlayer(uuid)) {
+                    failed++;
+                }
+            }
+            plugin.getLogger().info("Vote readiness: loaded " + (seed.size() - failed) + " players in "
+                    + (System.currentTimeMillis() - start) + "ms, " + readyIndex.getPending() + " cooldowns pending.");
+        });
+    }
 
-                String nextVoteISO = readyNow ? null :
-                    Instant.ofEpochMilli(nextVoteMs).toString();
+    /**
+     * Load one player's cooldowns into the ready index, e.g. when they link their
+     * account. Reads VotingPlugin's storage, so call it off the main thread.
+     */
+    public boolean trackPlayer(UUID uuid) {
+        if (readyTask == null) {
+            return false;
+        }
+        try {
+            SiteTable sites = getSiteTable();
+            long generation = generations.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            long[] lastVoteMs = readLastVotes(uuid, sites);
+            generations.runIfCurrent(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), generation,
+                    () -> track(uuid, sites, lastVoteMs, System.currentTimeMillis()));
+            return true;
+        } catch (Exception e) {
+            if (!trackWarned) {
+                trackWarned = true;
+                plugin.getLogger().warning("Error loading vote cooldowns for " + uuid + ": " + e.getClass().getName() + ": " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    public void stopReadyTracking() {
+        if (readyTask != null) {
+            readyTask.cancel();
+            readyTask = null;
+        }
+    }
+
+    private void advanceReady() {
+        for (VoteReadyIndex.Ready ready : readyIndex.advance(System.currentTimeMillis())) {
+            plugin.publishEvent("vote.ready", out -> out.beginObject()
+                .name("uuid").value(ready.uuid.toString())
+                .name("site").value(ready.site)
+                .name("voteUrl").value(ready.voteUrl)
+                .endObject());
+        }
+    }
+
+    private static List<VoteSiteStatus> toStatus(VoteTimes times, long now) {
+        SiteInfo[] sites = times.sites.sites;
+        List<VoteSiteStatus> results = new ArrayList<>(sites.length);
 
-                String voteUrl = extractUrl(site.getVoteURL());
+        for (int i = 0; i < sites.length; i++) {
+            SiteInfo site = sites[i];
+            long lastVoteTime = times.lastVoteMs[i];
+            long nextVoteMs = lastVoteTime + site.cooldownMs;
 
-                results.add(new VoteSiteStatus(
-                    siteName, readyNow, nextVoteEpoch, nextVoteISO,
-                    remainingSeconds, voteUrl
-                ));
+            boolean readyNow;
+            long nextVoteEpoch;
+            long remainingSeconds;
+
+            if (lastVoteTime <= 0 || now >= nextVoteMs) {
+                // Never voted or cooldown expired
+                readyNow = true;
+                nextVoteEpoch = 0;
+                remainingSeconds = 0;
+            } else {
+                readyNow = false;
+                nextVoteEpoch = nextVoteMs / 1000;
+                remainingSeconds = (nextVoteMs - now) / 1000;
             }
 
-            voteCache.put(uuidStr, new CachedVoteData(results));
-            return results;
-        } catch (Throwable e) {
-            plugin.getLogger().warning("Error getting vote status for " + uuidStr + ": " + e.getClass().getName() + ": " + e.getMessage());
-            return Collections.emptyList();
+            String nextVoteISO = readyNow ? null :
+                Instant.ofEpochMilli(nextVoteMs).toString();
+
+            results.add(new VoteSiteStatus(
+                site.siteName, readyNow, nextVoteEpoch, nextVoteISO,
+                remainingSeconds, site.voteUrl
+            ));
+        }
+        return results;
+    }
+
+    /**
+     * Current site metadata. Rebuilt when VotingPlugin's site list changes, which
+     * it does on reload (new VoteSite instances), so display names and URLs are
+     * parsed once rather than on every cache miss. The load-test harness
+     * overrides this with a fixed table.
+     */
+    SiteTable getSiteTable() {
+        List<VoteSite> current = VotingPluginMain.getPlugin().getVoteSites();
+        SiteTable table = siteTable;
+        if (table != null && table.matches(current)) {
+            return table;
+        }
+
+        SiteInfo[] sites = new SiteInfo[current.size()];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = new SiteInfo(current.get(i));
+        }
+        table = new SiteTable(sites);
+        siteTable = table;
+        return table;
+    }
+
+    /**
+     * Called when VotingPlugin records a vote: drop the cached status, publish
+     * vote.cast, and track when the site's cooldown ends.
+     */
+    public void onVote(UUID uuid, String playerName, VoteSite site) {
+        String uuidStr = uuid.toString();
+        generations.bump(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        voteCache.invalidate(uuid);
+
+        SiteInfo info = site != null ? getSiteTable().find(site) : null;
+        String siteName = info != null ? info.siteName : site != null ? site.getKey() : null;
+        plugin.publishEvent("vote.cast", out -> out.beginObject()
+            .name("uuid").value(uuidStr)
+            .name("name").value(playerName)
+            .name("site").value(siteName)
+            .endObject());
+
+        if (info != null && info.cooldownMs > 0) {
+            long now = System.currentTimeMillis();
+            readyIndex.schedule(uuid, info.siteName, info.voteUrl, now + info.cooldownMs, now);
         }
     }
 
+    /**
+     * Drop the cached vote status for one player, e.g. after they vote.
+     */
+    public void invalidate(String uuidStr) {
+        UUID uuid = UUID.fromString(uuidStr);
+        generations.bump(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        voteCache.invalidate(uuid);
+    }
+
+    /**
+     * Whether a player's vote times are cached, without counting a cache hit.
+     */
+    public boolean isCached(UUID uuid) {
+        return voteCache.contains(uuid);
+    }
+
     public void clearCache() {
         voteCache.clear();
     }
 
+    public UuidTtlCache<VoteTimes> getCache() {
+        return voteCache;
+    }
+
+    public VoteReadyIndex getReadyIndex() {
+        return readyIndex;
+    }
+
+    public SingleFlight<UUID, VoteTimes> getLookups() {
+        return lookups;
+    }
+
     /**
      * Extract a plain URL from VotingPlugin's text component format.
      * Input like ({Text="...",url="https://example.com/vote"}) returns https://example.com/vote
-     * If already a plain URL or null, returns as-is.
+     * If already a plain URL or null, returns as-is. Package-private for the benchmarks.
      */
-    private static String extractUrl(String raw) {
+    static String extractUrl(String raw) {
         if (raw == null || raw.isEmpty()) return null;
         // Look for url="..." in the VotingPlugin text component format
         int idx = raw.indexOf("url=\"");
@@ -129,6 +326,91 @@ public class VotePluginIntegration {
         return raw;
     }
 
+    // ---- VotingPlugin calls; the load-test harness overrides these with stand-ins ----
+
+    /**
+     * Last vote time per site (0 if never), aligned with sites.
+     */
+    long[] fetchLastVotes(UUID uuid, SiteInfo[] sites) {
+        VotingPluginUser vpUser = VotingPluginMain.getPlugin().getUser(uuid);
+        long[] lastVoteMs = new long[sites.length];
+        for (int i = 0; i < lastVoteMs.length; i++) {
+            lastVoteMs[i] = vpUser.getTime(sites[i].site);
+        }
+        return lastVoteMs;
+    }
+
+    static class SiteInfo {
+        final VoteSite site; // null for stand-in sites
+        final String key;
+        final String siteName;
+        final String voteUrl;
+        final long cooldownMs;
+
+        SiteInfo(String key, String siteName, String voteUrl, long cooldownMs) {
+            this.site = null;
+            this.key = key;
+            this.siteName = siteName;
+            this.voteUrl = voteUrl;
+            this.cooldownMs = cooldownMs;
+        }
+
+        SiteInfo(VoteSite site) {
+            String name = site.getDisplayName();
+            if (name == null || name.isEmpty()) {
+                name = site.getKey();
+            }
+            this.site = site;
+            this.key = site.getKey();
+            this.siteName = name;
+            this.voteUrl = extractUrl(site.getVoteURL());
+            int cooldownHours = (int) site.getVoteDelay(); // cooldown in hours
+            this.cooldownMs = cooldownHours * 3600L * 1000L;
+        }
+    }
+
+    static class SiteTable {
+        final SiteInfo[] sites;
+
+        SiteTable(SiteInfo[] sites) {
+            this.sites = sites;
+        }
+
+        SiteInfo find(VoteSite site) {
+            for (SiteInfo info : sites) {
+                if (info.site == site || info.key.equals(site.getKey())) {
+                    return info;
+                }
+            }
+            return null;
+        }
+
+        boolean matches(List<VoteSite> current) {
+            if (current.size() != sites.length) {
+                return false;
+            }
+            for (int i = 0; i < sites.length; i++) {
+                if (current.get(i) != sites[i].site) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Cached per-player data: last vote time per site, aligned with a SiteTable.
+     */
+    public static class VoteTimes {
+        final SiteTable sites;
+        final long[] lastVoteMs;
+
+        VoteTimes(SiteTable sites, long[] lastVoteMs) {
+            this.sites = sites;
+            this.lastVoteMs = lastVoteMs;
+        }
+    }
+
     public static class VoteSiteStatus {
         public final String siteName;
         public final boolean readyNow;
@@ -147,14 +429,4 @@ public class VotePluginIntegration {
             this.voteUrl = voteUrl;
         }
     }
-
-    private static class CachedVoteData {
-        final List<VoteSiteStatus> data;
-        final long timestamp;
-
-        CachedVoteData(List<VoteSiteStatus> data) {
-            this.data = data;
-            this.timestamp = System.currentTimeMillis();
-        }
-    }
 }
@@ -0,0 +1,179 @@
+package com.runbad.bridge.integrations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * When each tracked player's vote cooldowns end, and a log of the ones that have.
+ *
+ * Pending expiries sit in a priority queue keyed by time (one entry per player and
+ * site; a newer vote replaces the old entry). {@link #advance(long)} moves due
+ * entries into a fixed-size log with increasing sequence numbers, so "who became
+ * ready since cursor X" is read straight out of the log at a cost proportional to
+ * the answer, not to the number of players.
+ */
+public class VoteReadyIndex {
+
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>();
+    private final Map<String, Pending> pending = new HashMap<>();
+    private final Ready[] log;
+    private final long firstSequence;
+    private long sequence;
+
+    public VoteReadyIndex(int historySize) {
+        this.log = new Ready[Math.max(1, historySize)];
+        // Start from the clock so a cursor from before a restart is recognised as stale
+        this.sequence = System.currentTimeMillis() * 1000;
+        this.firstSequence = sequence + 1;
+    }
+
+    /**
+     * Expect the player's cooldown on site to end at readyAtMs, replacing any earlier
+     * expectation. A time that has already passed just cancels it: the player is
+     * ready, but since an unknown time, so it is not logged.
+     */
+    public synchronized void schedule(UUID uuid, String site, String voteUrl, long readyAtMs, long now) {
+        String key = uuid + "|" + site;
+        Pending existing = pending.get(key);
+        if (existing != null) {
+            if (existing.readyAtMs == readyAtMs) {
+                return;
+            }
+            existing.cancelled = true;
+            pending.remove(key);
+        }
+        if (readyAtMs <= now) {
+            return;
+        }
+        Pending entry = new Pending(key, uuid, site, voteUrl, readyAtMs);
+        pending.put(key, entry);
+        queue.add(entry);
+        compactIfNeeded();
+    }
+
+    /**
+     * Log every cooldown that has ended by now and return the new log entries.
+     */
+    public synchronized List<Ready> advance(long now) {
+        List<Ready> due = null;
+        Pending head;
+        while ((head = queue.peek()) != null && head.readyAtMs <= now) {
+            queue.poll();
+            if (head.cancelled) {
+                continue;
+            }
+            pending.remove(head.key);
+            Ready ready = new Ready(++sequence, head.uuid, head.site, head.voteUrl, head.readyAtMs);
+            log[(int) (ready.seq % log.length)] = ready;
+            if (due == null) {
+                due = new ArrayList<>();
+            }
+            due.add(ready);
+        }
+        return due != null ? due : Collections.emptyList();
+    }
+
+    /**
+     * Up to limit entries logged after cursor, oldest first. If entries after the
+     * cursor have already been overwritten, or the cursor is from before a restart,
+     * the page starts at the oldest entry still kept and is marked as a reset.
+     */
+    public synchronized Page since(long cursor, int limit) {
+        long oldest = Math.max(firstSequence, sequence - log.length + 1);
+        long first = cursor + 1;
+        boolean reset = false;
+        if (first < oldest || cursor > sequence) {
+            reset = true;
+            first = oldest;
+        }
+        long last = Math.min(sequence, first + limit - 1);
+        List<Ready> entries = new ArrayList<>((int) Math.max(0, last - first + 1));
+        for (long seq = first; seq <= last; seq++) {
+            entries.add(log[(int) (seq % log.length)]);
+        }
+        long next = entries.isEmpty() ? (reset ? sequence : cursor) : last;
+        return new Page(entries, next, reset, last < sequence);
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Cooldowns currently being waited on.
+     */
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Replaced entries stay in the queue until they come due; rebuild it when they
+     * outnumber the live ones.
+     */
+    private void compactIfNeeded() {
+        if (queue.size() > 2 * pending.size() + 1024) {
+            queue.clear();
+            queue.addAll(pending.values());
+        }
+    }
+
+    private static final class Pending implements Comparable<Pending> {
+        final String key;
+        final UUID uuid;
+        final String site;
+        final String voteUrl;
+        final long readyAtMs;
+        boolean cancelled;
+
+        Pending(String key, UUID uuid, String site, String voteUrl, long readyAtMs) {
+            this.key = key;
+            this.uuid = uuid;
+            this.site = site;
+            this.voteUrl = voteUrl;
+            this.readyAtMs = readyAtMs;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            return Long.compare(readyAtMs, other.readyAtMs);
+        }
+    }
+
+    public static final class Ready {
+        public final long seq;
+        public final UUID uuid;
+        public final String site;
+        public final String voteUrl;
+        public final long readyAtMs;
+
+        Ready(long seq, UUID uuid, String site, String voteUrl, long readyAtMs) {
+            this.seq = seq;
+            this.uuid = uuid;
+            this.site = site;
+            this.voteUrl = voteUrl;
+            this.readyAtMs = readyAtMs;
+        }
+    }
+
+    public static final class Page {
+        public final List<Ready> entries;
+        /** Pass as the next cursor */
+        public final long cursor;
+        /** Entries after the requested cursor were lost; resync before relying on the log */
+        public final boolean reset;
+        /** More entries are waiting beyond this page */
+        public final boolean more;
+
+        Page(List<Ready> entries, long cursor, boolean reset, boolean more) {
+            this.entries = entries;
+            this.cursor = cursor;
+            this.reset = reset;
+            this.more = more;
+        }
+    }
+}
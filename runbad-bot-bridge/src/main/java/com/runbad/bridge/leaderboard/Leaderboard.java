@@ -0,0 +1,262 @@
+package com.runbad.bridge.leaderboard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One configured leaderboard: players ranked by the numeric value of a placeholder.
+ *
+ * Values are pushed in by the sampler; queries only read the index, so they never
+ * evaluate placeholders. Every player ever sampled stays ranked, with the last
+ * value seen for them, and the board is saved to disk so it survives restarts.
+ */
+public class Leaderboard {
+
+    // First number in a value such as "$1,234.50" or "42 votes"
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+
+    private final String id;
+    private final String placeholder;
+    private final boolean descending;
+    private final RankedIndex index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile long version;
+    private volatile long updatedAt;
+    private long savedVersion;
+
+    public Leaderboard(String id, String placeholder, boolean descending) {
+        this.id = id;
+        this.placeholder = placeholder;
+        this.descending = descending;
+        this.index = new RankedIndex(descending);
+        // Start from the clock so versions keep increasing across restarts and an
+        // ETag from before a restart can't match different content
+        this.version = System.currentTimeMillis() * 1000;
+        this.savedVersion = version;
+    }
+
+    /**
+     * Record a sampled placeholder value. Values that are not numeric (including
+     * an unexpanded placeholder) are ignored and the previous score is kept.
+     * Returns true if the board changed.
+     */
+    public boolean update(UUID uuid, String name, String value) {
+        if (value == null || value.equals(placeholder)) {
+            return false; // expansion missing or not loaded yet
+        }
+        double score = parseScore(value);
+        if (Double.isNaN(score)) {
+            return false;
+        }
+        boolean changed;
+        lock.writeLock().lock();
+        try {
+            changed = index.put(uuid, score, name != null ? name : "", value.trim());
+            if (changed) {
+                version++;
+                updatedAt = System.currentTimeMillis() / 1000;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changed;
+    }
+
+    /**
+     * The best limit entries and, if player is not null, that player's entry
+     * (null when unranked). Equal scores share a rank.
+     */
+    public Page query(int limit, UUID player) {
+        lock.readLock().lock();
+        try {
+            List<Entry> top = new ArrayList<>(Math.min(limit, index.size()));
+            int position = 0;
+            int rank = 0;
+            double previous = Double.NaN;
+            for (RankedIndex.Node node : index.top(limit)) {
+                position++;
+                if (Double.compare(node.score, previous) != 0) {
+                    rank = position;
+                    previous = node.score;
+                }
+                top.add(new Entry(rank, node));
+            }
+
+            Entry own = null;
+            if (player != null) {
+                RankedIndex.Node node = index.get(player);
+                if (node != null) {
+                    own = new Entry(index.countBetter(node.score) + 1, node);
+                }
+            }
+            return new Page(top, own, index.size(), version, updatedAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // ---- persistence ----
+
+    /**
+     * Load a board saved by {@link #save(Path)}. A file written for a different
+     * placeholder is ignored, since its scores mean something else.
+     */
+    public synchronized void load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.equals("#" + placeholder)) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", 4);
+                    if (fields.length < 4) {
+                        continue;
+                    }
+                    try {
+                        index.put(UUID.fromString(fields[0]), Double.parseDouble(fields[1]), fields[2], fields[3]);
+                    } catch (IllegalArgumentException e) {
+                        // Skip a damaged line rather than lose the board
+                    }
+                }
+                savedVersion = ++version;
+                updatedAt = Files.getLastModifiedTime(file).toMillis() / 1000;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Write the board to file (via a temp file, so a crash mid-write keeps the old
+     * one). Skipped when nothing changed since the last load or save.
+     */
+    public synchronized void save(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long snapshotVersion;
+        lock.readLock().lock();
+        try {
+            snapshotVersion = version;
+            if (snapshotVersion == savedVersion) {
+                return;
+            }
+            index.forEach(node -> lines.add(node.uuid + "\t" + node.score + "\t"
+                    + clean(node.name) + "\t" + clean(node.display)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("#" + placeholder);
+            writer.newLine();
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        savedVersion = snapshotVersion;
+    }
+
+    private static String clean(String s) {
+        return s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Numeric value of a placeholder result: the whole string if it parses after
+     * dropping thousands separators, otherwise the first number in it. NaN if there
+     * is none.
+     */
+    static double parseScore(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        String trimmed = value.trim().replace(",", "");
+        try {
+            double score = Double.parseDouble(trimmed);
+            return Double.isFinite(score) ? score : Double.NaN;
+        } catch (NumberFormatException e) {
+            Matcher matcher = NUMBER.matcher(trimmed);
+            return matcher.find() ? Double.parseDouble(matcher.group()) : Double.NaN;
+        }
+    }
+
+    public static class Entry {
+        public final int rank;
+        public final UUID uuid;
+        public final String name;
+        public final double score;
+        /** The placeholder's formatted output, e.g. "$1,234.50" */
+        public final String display;
+
+        Entry(int rank, RankedIndex.Node node) {
+            this.rank = rank;
+            this.uuid = node.uuid;
+            this.name = node.name;
+            this.score = node.score;
+            this.display = node.display;
+        }
+    }
+
+    public static class Page {
+        public final List<Entry> top;
+        /** The requested player's entry, or null */
+        public final Entry player;
+        public final int size;
+        public final long version;
+        public final long updatedAt;
+
+        Page(List<Entry> top, Entry player, int size, long version, long updatedAt) {
+            this.top = top;
+            this.player = player;
+            this.size = size;
+            this.version = version;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.runbad.bridge.leaderboard;
+
+import com.runbad.bridge.RunbadBotBridge;
+import com.runbad.bridge.integrations.PlaceholderApiIntegration;
+import com.runbad.bridge.metrics.Histogram;
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the configured leaderboards up to date.
+ *
+ * Players are sampled on quit and, while online, every sample-interval seconds.
+ * Sampling evaluates each board's placeholder on the main thread, spread over
+ * ticks within leaderboards.tick-budget-ms. Boards are saved to
+ * plugins/RunbadBotBridge/leaderboards/ on the same interval and on shutdown.
+ */
+public class LeaderboardManager {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("^[a-z0-9_-]{1,32}$");
+
+    private final RunbadBotBridge plugin;
+    private final Map<String, Leaderboard> boards = new LinkedHashMap<>();
+    private final Path folder;
+    private final long intervalTicks;
+    private final long tickBudgetNanos;
+    private final int maxLimit;
+    private final Histogram sampleTime;
+
+    // Main thread only
+    private final Set<UUID> pending = new LinkedHashSet<>();
+    private long samples;
+    private BukkitTask enqueueTask;
+    private BukkitTask drainTask;
+    private BukkitTask saveTask;
+    private volatile boolean loading;
+
+    public LeaderboardManager(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+        this.folder = plugin.getDataFolder().toPath().resolve("leaderboards");
+        this.intervalTicks = Math.max(10, plugin.getConfig().getLong("leaderboards.sample-interval", 300)) * 20L;
+        this.tickBudgetNanos = Math.max(1, plugin.getConfig().getLong("leaderboards.tick-budget-ms", 2)) * 1_000_000L;
+        this.maxLimit = Math.max(1, plugin.getConfig().getInt("leaderboards.max-limit", 100));
+        this.sampleTime = plugin.getMetrics().integration("placeholderapi", "leaderboard_sample");
+
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("leaderboards.boards");
+        if (section == null) {
+            return;
+        }
+        for (String id : section.getKeys(false)) {
+            String placeholder = section.getString(id + ".placeholder", "");
+            String order = section.getString(id + ".order", "desc").toLowerCase();
+            if (!ID_PATTERN.matcher(id).matches()) {
+                plugin.getLogger().warning("Leaderboard '" + id + "' skipped: ids may only use a-z, 0-9, _ and -.");
+                continue;
+            }
+            if (!PlaceholderApiIntegration.isAllowed(placeholder)) {
+                plugin.getLogger().warning("Leaderboard '" + id + "' skipped: placeholder '" + placeholder
+                        + "' is invalid or blocked.");
+                continue;
+            }
+            if (!order.equals("desc") && !order.equals("asc")) {
+                plugin.getLogger().warning("Leaderboard '" + id + "': unknown order '" + order + "' - using desc.");
+                order = "desc";
+            }
+            boards.put(id, new Leaderboard(id, placeholder, order.equals("desc")));
+        }
+    }
+
+    /**
+     * Load the saved boards in the background, then start sampling. Sampling needs
+     * PlaceholderAPI; without it saved boards are still served.
+     */
+    public void start() {
+        if (boards.isEmpty()) {
+            return;
+        }
+        loading = true;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            for (Leaderboard board : boards.values()) {
+                try {
+                    board.load(fileFor(board));
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not load leaderboard '" + board.getId() + "': " + e.getMessage());
+                }
+            }
+            loading = false;
+            if (plugin.isEnabled() && plugin.getPlaceholderApi().isAvailable()) {
+                Bukkit.getScheduler().runTask(plugin, this::startSampling);
+            }
+        });
+    }
+
+    /**
+     * True while saved boards are being loaded; until then boards are empty.
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private void startSampling() {
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        enqueueTask = Bukkit.getScheduler().runTaskTimer(plugin, this::enqueueOnline, 20L, intervalTicks);
+        drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+        saveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::save, intervalTicks, intervalTicks);
+
+        if (plugin.getConfig().getBoolean("leaderboards.seed-offline", false)) {
+            // Everyone who has played, spread over ticks like any other sample
+            for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+                pending.add(player.getUniqueId());
+            }
+        }
+        plugin.getLogger().info("Leaderboards: " + String.join(", ", boards.keySet()));
+    }
+
+    /**
+     * Stop sampling and save every board. Call from the main thread.
+     */
+    public void stop() {
+        for (BukkitTask task : new BukkitTask[] {enqueueTask, drainTask, saveTask}) {
+            if (task != null) {
+                task.cancel();
+            }
+        }
+        enqueueTask = null;
+        drainTask = null;
+        saveTask = null;
+        pending.clear();
+        save();
+    }
+
+    /**
+     * Sample a player right away, e.g. as they leave while their data is still loaded.
+     * Main thread only.
+     */
+    public void sample(Player player) {
+        if (drainTask == null) {
+            return;
+        }
+        pending.remove(player.getUniqueId());
+        sample((OfflinePlayer) player);
+    }
+
+    public Leaderboard getBoard(String id) {
+        return boards.get(id);
+    }
+
+    public Collection<Leaderboard> getBoards() {
+        return Collections.unmodifiableCollection(boards.values());
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    private void enqueueOnline() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            pending.add(player.getUniqueId());
+        }
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        Iterator<UUID> it = pending.iterator();
+        // At least one player per tick so a backlog always shrinks
+        while (it.hasNext()) {
+            UUID uuid = it.next();
+            it.remove();
+            Player online = Bukkit.getPlayer(uuid);
+            sample(online != null ? online : Bukkit.getOfflinePlayer(uuid));
+            if (System.nanoTime() - start >= tickBudgetNanos) {
+                break;
+            }
+        }
+    }
+
+    private void sample(OfflinePlayer player) {
+        long start = System.nanoTime();
+        for (Leaderboard board : boards.values()) {
+            String value;
+            try {
+                value = PlaceholderAPI.setPlaceholders(player, board.getPlaceholder());
+            } catch (Exception e) {
+                continue; // keep the previous score
+            }
+            board.update(player.getUniqueId(), player.getName(), value);
+        }
+        samples++;
+        sampleTime.recordSince(start);
+    }
+
+    private void save() {
+        for (Leaderboard board : boards.values()) {
+            try {
+                board.save(fileFor(board));
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not save leaderboard '" + board.getId() + "': " + e.getMessage());
+            }
+        }
+    }
+
+    private Path fileFor(Leaderboard board) {
+        return folder.resolve(board.getId() + ".tsv");
+    }
+}
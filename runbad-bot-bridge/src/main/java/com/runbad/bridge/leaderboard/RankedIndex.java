@@ -0,0 +1,243 @@
+package com.runbad.bridge.leaderboard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Players ordered by score, with O(log n) update, remove and rank lookup.
+ *
+ * A treap (randomised balanced tree) keyed by (score, uuid) where every node knows
+ * its subtree size, plus a uuid map to find a player's current node. Not
+ * thread-safe; {@link Leaderboard} guards it with a read-write lock.
+ */
+class RankedIndex {
+
+    private final boolean descending;
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private Node root;
+
+    RankedIndex(boolean descending) {
+        this.descending = descending;
+    }
+
+    /**
+     * Set a player's score. Returns false if nothing changed.
+     */
+    boolean put(UUID uuid, double score, String name, String display) {
+        Node existing = nodes.get(uuid);
+        if (existing != null) {
+            if (Double.compare(existing.score, score) == 0) {
+                // Same position; name and display can be updated in place
+                boolean changed = !Objects.equals(existing.name, name) || !Objects.equals(existing.display, display);
+                existing.name = name;
+                existing.display = display;
+                return changed;
+            }
+            root = remove(root, existing);
+        }
+        Node node = new Node(uuid, score, name, display);
+        nodes.put(uuid, node);
+        root = insert(root, node);
+        return true;
+    }
+
+    boolean remove(UUID uuid) {
+        Node existing = nodes.remove(uuid);
+        if (existing == null) {
+            return false;
+        }
+        root = remove(root, existing);
+        return true;
+    }
+
+    Node get(UUID uuid) {
+        return nodes.get(uuid);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Number of players with a strictly better score. Equal scores share a rank,
+     * so a player's rank is this plus one.
+     */
+    int countBetter(double score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (better(node.score, score)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The first limit players, best first. O(log n + limit).
+     */
+    List<Node> top(int limit) {
+        List<Node> result = new ArrayList<>(Math.min(limit, nodes.size()));
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while ((node != null || !stack.isEmpty()) && result.size() < limit) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(node);
+            node = node.right;
+        }
+        return result;
+    }
+
+    /**
+     * Visit every player, best first.
+     */
+    void forEach(Consumer<Node> action) {
+        for (Node node : top(nodes.size())) {
+            action.accept(node);
+        }
+    }
+
+    // ---- treap ----
+
+    private boolean better(double a, double b) {
+        int cmp = Double.compare(a, b);
+        return descending ? cmp > 0 : cmp < 0;
+    }
+
+    /** Total order: score, then uuid so equal scores have a stable position. */
+    private boolean before(Node a, Node b) {
+        int cmp = Double.compare(a.score, b.score);
+        if (cmp != 0) {
+            return descending ? cmp > 0 : cmp < 0;
+        }
+        return a.uuid.compareTo(b.uuid) < 0;
+    }
+
+    private Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            // node becomes the root of this subtree
+            node.left = null;
+            node.right = null;
+            split(tree, node);
+            return update(node);
+        }
+        if (before(node, tree)) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return update(tree);
+    }
+
+    /**
+     * Split tree around key, attaching the nodes before it as key.left and the
+     * rest as key.right.
+     */
+    private void split(Node tree, Node key) {
+        Node left = null;
+        Node right = null;
+        Node leftTail = null;
+        Node rightTail = null;
+        ArrayDeque<Node> touched = new ArrayDeque<>();
+        while (tree != null) {
+            touched.push(tree);
+            if (before(tree, key)) {
+                if (leftTail == null) {
+                    left = tree;
+                } else {
+                    leftTail.right = tree;
+                }
+                leftTail = tree;
+                tree = tree.right;
+                leftTail.right = null;
+            } else {
+                if (rightTail == null) {
+                    right = tree;
+                } else {
+                    rightTail.left = tree;
+                }
+                rightTail = tree;
+                tree = tree.left;
+                rightTail.left = null;
+            }
+        }
+        // Sizes are fixed up deepest first
+        while (!touched.isEmpty()) {
+            update(touched.pop());
+        }
+        key.left = left;
+        key.right = right;
+    }
+
+    private Node remove(Node tree, Node node) {
+        if (tree == node) {
+            return merge(tree.left, tree.right);
+        }
+        if (before(node, tree)) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        return update(tree);
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    static final class Node {
+        final UUID uuid;
+        final double score;
+        String name;
+        String display;
+
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(UUID uuid, double score, String name, String display) {
+            this.uuid = uuid;
+            this.score = score;
+            this.name = name;
+            this.display = display;
+        }
+    }
+}
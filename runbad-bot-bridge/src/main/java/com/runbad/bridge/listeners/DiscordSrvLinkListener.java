@@ -0,0 +1,46 @@
+package com.runbad.bridge.listeners;
+
+import com.runbad.bridge.RunbadBotBridge;
+import github.scarsz.discordsrv.api.Subscribe;
+import github.scarsz.discordsrv.api.events.AccountLinkedEvent;
+import github.scarsz.discordsrv.api.events.AccountUnlinkedEvent;
+
+import java.util.UUID;
+
+/**
+ * Keeps the link cache current from DiscordSRV link/unlink events,
+ * so link results can be cached for much longer than before,
+ * forwards them to /v1/events, and starts tracking vote readiness for new links.
+ * Registered through DiscordSRV's own API, not Bukkit's event bus.
+ */
+public class DiscordSrvLinkListener {
+
+    private final RunbadBotBridge plugin;
+
+    public DiscordSrvLinkListener(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+    }
+
+    @Subscribe
+    public void onAccountLinked(AccountLinkedEvent event) {
+        if (event.getUser() == null || event.getPlayer() == null) {
+            return;
+        }
+        UUID uuid = event.getPlayer().getUniqueId();
+        plugin.getDiscordSrv().onLinked(event.getUser().getId(), uuid);
+        if (plugin.getVotePlugin().isAvailable()) {
+            // Newly linked players start showing up in /v1/vote/ready
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin,
+                    () -> plugin.getVotePlugin().trackPlayer(uuid));
+        }
+    }
+
+    @Subscribe
+    public void onAccountUnlinked(AccountUnlinkedEvent event) {
+        if (event.getDiscordId() == null) {
+            return;
+        }
+        plugin.getDiscordSrv().onUnlinked(event.getDiscordId(),
+                event.getPlayer() != null ? event.getPlayer().getUniqueId() : null);
+    }
+}
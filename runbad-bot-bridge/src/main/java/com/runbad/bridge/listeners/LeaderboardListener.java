@@ -0,0 +1,25 @@
+package com.runbad.bridge.listeners;
+
+import com.runbad.bridge.RunbadBotBridge;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Samples a player's leaderboard values as they leave, so the boards hold their
+ * final values for the session. Only registered when leaderboards are configured.
+ */
+public class LeaderboardListener implements Listener {
+
+    private final RunbadBotBridge plugin;
+
+    public LeaderboardListener(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        plugin.getLeaderboards().sample(event.getPlayer());
+    }
+}
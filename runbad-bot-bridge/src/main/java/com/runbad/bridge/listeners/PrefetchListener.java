@@ -0,0 +1,25 @@
+package com.runbad.bridge.listeners;
+
+import com.runbad.bridge.RunbadBotBridge;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+/**
+ * Prefetches a joining player's link, vote status and hot placeholders into the
+ * caches. Only registered when prefetch.enabled is set.
+ */
+public class PrefetchListener implements Listener {
+
+    private final RunbadBotBridge plugin;
+
+    public PrefetchListener(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        plugin.getJoinPrefetcher().onJoin(event.getPlayer());
+    }
+}
@@ -0,0 +1,33 @@
+package com.runbad.bridge.listeners;
+
+import com.bencodez.votingplugin.events.PlayerPostVoteEvent;
+import com.runbad.bridge.RunbadBotBridge;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.UUID;
+
+/**
+ * Drops a player's cached vote status as soon as VotingPlugin records a vote,
+ * and announces the vote on /v1/events. Only registered when VotingPlugin is present.
+ */
+public class VoteListener implements Listener {
+
+    private final RunbadBotBridge plugin;
+
+    public VoteListener(RunbadBotBridge plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPostVote(PlayerPostVoteEvent event) {
+        if (event.getUser() == null) {
+            return;
+        }
+        UUID uuid = event.getUser().getJavaUUID();
+        if (uuid != null) {
+            plugin.getVotePlugin().onVote(uuid, event.getUser().getPlayerName(), event.getVoteSite());
+        }
+    }
+}
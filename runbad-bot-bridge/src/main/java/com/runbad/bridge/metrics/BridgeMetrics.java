@@ -0,0 +1,302 @@
+package com.runbad.bridge.metrics;
+
+import com.runbad.bridge.api.RateLimiter;
+import com.runbad.bridge.cache.BoundedCache;
+import com.runbad.bridge.cache.SingleFlight;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Counters and latency histograms for the bridge, exported in Prometheus text
+ * format by /metrics and summarised by /bridgestatus.
+ *
+ * Recording is lock-free: request and integration timings go into LongAdder
+ * buckets, and everything else (cache, rate limiter and executor stats) is read
+ * from its owner only when scraped. Sources are registered once at startup.
+ */
+public class BridgeMetrics {
+
+    private static final String PREFIX = "runbad_bridge_";
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> integrationCalls = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder();
+
+    // Registered at startup, read at scrape time
+    private final Map<String, BoundedCache> caches = new LinkedHashMap<>();
+    private final Map<String, SingleFlight<?, ?>> flights = new LinkedHashMap<>();
+    private final Map<String, RateLimiter> rateLimiters = new LinkedHashMap<>();
+    private final Map<String, ExecutorService> executors = new LinkedHashMap<>();
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+
+    /**
+     * Wrap a handler so each request is timed under its context path and status code.
+     */
+    public HttpHandler instrument(String path, HttpHandler handler) {
+        Endpoint endpoint = endpoints.computeIfAbsent(path, p -> new Endpoint());
+        return exchange -> {
+            long start = System.nanoTime();
+            inFlight.increment();
+            try {
+                handler.handle(exchange);
+            } finally {
+                inFlight.decrement();
+                int status = exchange.getResponseCode();
+                endpoint.forStatus(status == -1 ? 500 : status).recordSince(start);
+            }
+        };
+    }
+
+    /**
+     * The histogram for one kind of integration call. Look it up once and keep it.
+     */
+    public Histogram integration(String integration, String op) {
+        return integrationCalls.computeIfAbsent(integration + "\u0000" + op, k -> new Histogram());
+    }
+
+    public synchronized void registerCache(String name, BoundedCache cache, SingleFlight<?, ?> flight) {
+        caches.put(name, cache);
+        flights.put(name, flight);
+    }
+
+    /**
+     * A limiter shared by several endpoints is listed once, under the first name it
+     * is registered with.
+     */
+    public synchronized void registerRateLimiter(String name, RateLimiter limiter) {
+        if (!rateLimiters.containsValue(limiter)) {
+            rateLimiters.put(name, limiter);
+        }
+    }
+
+    public synchronized void registerExecutor(String name, ExecutorService executor) {
+        executors.put(name, executor);
+    }
+
+    public synchronized void registerGauge(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge(help, value));
+    }
+
+    public synchronized void unregisterExecutors() {
+        executors.clear();
+    }
+
+    // ---- export ----
+
+    /**
+     * All metrics in Prometheus text exposition format 0.0.4.
+     */
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+
+        header(out, "http_request_duration_seconds", "histogram",
+                "HTTP request latency by endpoint and status code (the _count is the request count).");
+        for (Map.Entry<String, Endpoint> e : new TreeMap<>(endpoints).entrySet()) {
+            for (Map.Entry<Integer, Histogram> s : new TreeMap<>(e.getValue().byStatus).entrySet()) {
+                histogram(out, "http_request_duration_seconds", s.getValue(),
+                        "endpoint=\"" + escape(e.getKey()) + "\",code=\"" + s.getKey() + "\"");
+            }
+        }
+        header(out, "http_requests_in_flight", "gauge", "Requests being handled right now.");
+        sample(out, "http_requests_in_flight", "", inFlight.sum());
+
+        header(out, "rate_limit_rejections_total", "counter", "Requests rejected by a rate limiter.");
+        for (Map.Entry<String, RateLimiter> e : rateLimiters.entrySet()) {
+            sample(out, "rate_limit_rejections_total", label("limiter", e.getKey()), e.getValue().getRejected());
+        }
+
+        cacheCounter(out, "cache_hits_total", "Cache hits.", BoundedCache::getHits);
+        cacheCounter(out, "cache_misses_total", "Cache misses.", BoundedCache::getMisses);
+        cacheCounter(out, "cache_evictions_total", "Entries evicted to stay within max size.", BoundedCache::getEvictions);
+        cacheCounter(out, "cache_expirations_total", "Entries dropped after their TTL.", BoundedCache::getExpirations);
+        header(out, "cache_entries", "gauge", "Entries currently cached.");
+        for (Map.Entry<String, BoundedCache> e : caches.entrySet()) {
+            sample(out, "cache_entries", label("cache", e.getKey()), e.getValue().size());
+        }
+        header(out, "cache_coalesced_total", "counter", "Lookups that shared another caller's in-flight load.");
+        for (Map.Entry<String, SingleFlight<?, ?>> e : flights.entrySet()) {
+            sample(out, "cache_coalesced_total", label("cache", e.getKey()), e.getValue().getCoalesced());
+        }
+
+        header(out, "integration_call_duration_seconds", "histogram",
+                "Time spent inside DiscordSRV, VotingPlugin and PlaceholderAPI calls.");
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(integrationCalls).entrySet()) {
+            String[] key = e.getKey().split("\u0000", 2);
+            histogram(out, "integration_call_duration_seconds", e.getValue(),
+                    label("integration", key[0]) + "," + label("op", key[1]));
+        }
+
+        header(out, "executor_active_threads", "gauge", "Threads running a task (thread pools only).");
+        for (Map.Entry<String, ThreadPoolExecutor> e : pools().entrySet()) {
+            sample(out, "executor_active_threads", label("executor", e.getKey()), e.getValue().getActiveCount());
+        }
+        header(out, "executor_queue_depth", "gauge", "Tasks waiting for a thread (thread pools only).");
+        for (Map.Entry<String, ThreadPoolExecutor> e : pools().entrySet()) {
+            sample(out, "executor_queue_depth", label("executor", e.getKey()), e.getValue().getQueue().size());
+        }
+
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+            header(out, e.getKey(), "gauge", e.getValue().help);
+            sample(out, e.getKey(), "", e.getValue().value.getAsLong());
+        }
+        return out.toString();
+    }
+
+    // ---- summaries for /bridgestatus ----
+
+    /**
+     * Request count and latency for each endpoint, across status codes.
+     */
+    public synchronized List<Summary> endpointSummaries() {
+        List<Summary> summaries = new ArrayList<>();
+        for (Map.Entry<String, Endpoint> e : new TreeMap<>(endpoints).entrySet()) {
+            long[] total = new long[Histogram.LE.length];
+            long errors = 0;
+            for (Map.Entry<Integer, Histogram> s : e.getValue().byStatus.entrySet()) {
+                long[] snapshot = s.getValue().snapshot();
+                Histogram.add(total, snapshot);
+                if (s.getKey() >= 500) {
+                    errors += snapshot[snapshot.length - 1];
+                }
+            }
+            summaries.add(new Summary(e.getKey(), total, errors));
+        }
+        return summaries;
+    }
+
+    /**
+     * Call count and latency for each integration call.
+     */
+    public synchronized List<Summary> integrationSummaries() {
+        List<Summary> summaries = new ArrayList<>();
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(integrationCalls).entrySet()) {
+            summaries.add(new Summary(e.getKey().replace('\u0000', '.'), e.getValue().snapshot(), 0));
+        }
+        return summaries;
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public synchronized long getRateLimitRejections() {
+        long total = 0;
+        for (RateLimiter limiter : rateLimiters.values()) {
+            total += limiter.getRejected();
+        }
+        return total;
+    }
+
+    /**
+     * "active/queued" for each thread-pool executor, e.g. "http 3 active, 0 queued".
+     */
+    public synchronized List<String> executorSummaries() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, ThreadPoolExecutor> e : pools().entrySet()) {
+            lines.add(e.getKey() + " " + e.getValue().getActiveCount() + " active, "
+                    + e.getValue().getQueue().size() + " queued");
+        }
+        return lines;
+    }
+
+    // ---- helpers ----
+
+    private Map<String, ThreadPoolExecutor> pools() {
+        Map<String, ThreadPoolExecutor> pools = new LinkedHashMap<>();
+        for (Map.Entry<String, ExecutorService> e : executors.entrySet()) {
+            // Virtual-thread executors have no pool or queue; in-flight covers them
+            if (e.getValue() instanceof ThreadPoolExecutor) {
+                pools.put(e.getKey(), (ThreadPoolExecutor) e.getValue());
+            }
+        }
+        return pools;
+    }
+
+    private void cacheCounter(StringBuilder out, String name, String help,
+                              ToLongFunction<BoundedCache> value) {
+        header(out, name, "counter", help);
+        for (Map.Entry<String, BoundedCache> e : caches.entrySet()) {
+            sample(out, name, label("cache", e.getKey()), value.applyAsLong(e.getValue()));
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(PREFIX).append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, Histogram histogram, String labels) {
+        long[] cumulative = histogram.snapshot();
+        for (int i = 0; i < cumulative.length; i++) {
+            out.append(PREFIX).append(name).append("_bucket{").append(labels)
+                .append(",le=\"").append(Histogram.LE[i]).append("\"} ").append(cumulative[i]).append('\n');
+        }
+        out.append(PREFIX).append(name).append("_sum{").append(labels).append("} ")
+            .append(histogram.getSumSeconds()).append('\n');
+        out.append(PREFIX).append(name).append("_count{").append(labels).append("} ")
+            .append(cumulative[cumulative.length - 1]).append('\n');
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + escape(value) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Endpoint {
+        final Map<Integer, Histogram> byStatus = new ConcurrentHashMap<>();
+
+        Histogram forStatus(int status) {
+            Histogram histogram = byStatus.get(status);
+            return histogram != null ? histogram : byStatus.computeIfAbsent(status, s -> new Histogram());
+        }
+    }
+
+    private static final class Gauge {
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String help, LongSupplier value) {
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    public static final class Summary {
+        public final String name;
+        public final long count;
+        public final long errors;
+        /** Bucket upper bounds in seconds: NaN with no samples, Infinity past the last bucket */
+        public final double p50;
+        public final double p99;
+
+        Summary(String name, long[] cumulative, long errors) {
+            this.name = name;
+            this.count = cumulative[cumulative.length - 1];
+            this.errors = errors;
+            this.p50 = Histogram.quantile(cumulative, 0.50);
+            this.p99 = Histogram.quantile(cumulative, 0.99);
+        }
+    }
+}
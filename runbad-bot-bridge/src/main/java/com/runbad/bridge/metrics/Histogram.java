@@ -0,0 +1,101 @@
+package com.runbad.bridge.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets, recorded without locks.
+ *
+ * Each bucket is a LongAdder, so concurrent recorders on different threads
+ * rarely touch the same cache line. Buckets hold per-bucket counts; the
+ * cumulative counts Prometheus expects are summed at scrape time.
+ */
+public final class Histogram {
+
+    /** Upper bounds in seconds, as exported in the le label */
+    static final double[] BOUNDS_SECONDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    /** The same bounds as Prometheus le labels, plus +Inf */
+    static final String[] LE = {
+        "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10", "+Inf"
+    };
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    // One more than the bounds: the last is +Inf
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Time since startNanos (a System.nanoTime() value).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Cumulative counts per bucket, +Inf last. The last value is the total count.
+     */
+    public long[] snapshot() {
+        long[] cumulative = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Upper bound of the bucket holding quantile q of a snapshot, in seconds:
+     * an estimate good to one bucket. Infinity if it falls past the last bound,
+     * NaN if nothing was recorded.
+     */
+    public static double quantile(long[] cumulative, double q) {
+        long total = cumulative[cumulative.length - 1];
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(q * total);
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            if (cumulative[i] >= rank) {
+                return BOUNDS_SECONDS[i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Add another snapshot into an accumulator of the same length.
+     */
+    public static void add(long[] into, long[] cumulative) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += cumulative[i];
+        }
+    }
+}